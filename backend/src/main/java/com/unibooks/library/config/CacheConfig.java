@@ -0,0 +1,48 @@
+package com.unibooks.library.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unibooks.library.dto.BookPageResponse;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+    public static final String BOOK_LISTS = "bookLists";
+
+    private static final long MAX_CACHED_BOOKS = 50_000;
+    // list caches are bounded by the total number of books they hold
+    private static final long MAX_CACHED_LIST_ENTRIES = 200_000;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(BOOKS, Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_BOOKS)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(BOOK_LISTS, Caffeine.newBuilder()
+                .maximumWeight(MAX_CACHED_LIST_ENTRIES)
+                .weigher((Object key, Object value) -> 1 + listSize(value))
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    private static int listSize(Object value) {
+        if (value instanceof List<?> list) {
+            return list.size();
+        }
+        if (value instanceof BookPageResponse page) {
+            return page.getItems().size();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.unibooks.library.controller;
+
+import com.unibooks.library.dto.AnalyticsResponse;
+import com.unibooks.library.service.BorrowAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    @Autowired
+    private BorrowAnalytics borrowAnalytics;
+
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String category) {
+        try {
+            AnalyticsResponse response = borrowAnalytics.query(from, to, granularity, category);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> rebuild() {
+        try {
+            borrowAnalytics.rebuild();
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Analytics rebuilt from borrow history");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.unibooks.library.controller;
 
 import com.unibooks.library.dto.AuthResponse;
+import com.unibooks.library.dto.AuthTokens;
 import com.unibooks.library.dto.LoginRequest;
 import com.unibooks.library.dto.RegisterRequest;
 import com.unibooks.library.model.User;
 import com.unibooks.library.service.AuthService;
+import com.unibooks.library.service.AuthTokenService;
+import com.unibooks.library.service.PasswordHasher;
+import com.unibooks.library.service.TokenRevocations;
 import com.unibooks.library.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
@@ -20,6 +27,12 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private AuthTokenService authTokenService;
+    
+    @Autowired
+    private TokenRevocations tokenRevocations;
+    
     @Autowired
     private JwtUtil jwtUtil;
     
@@ -27,7 +40,7 @@ public class AuthController {
     public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
         try {
             User user = authService.register(request);
-            String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+            AuthTokens tokens = authTokenService.issue(user);
             AuthResponse response = new AuthResponse(
                 "Registration successful",
                 user.getId(),
@@ -36,9 +49,12 @@ public class AuthController {
                 user.getGender(),
                 user.getMobile(),
                 user.getRole().name(),
-                token
+                tokens.getAccessToken(),
+                tokens.getRefreshToken()
             );
             return ResponseEntity.ok(response);
+        } catch (PasswordHasher.OverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new AuthResponse(e.getMessage(), null, null, null, null, null, null, null));
@@ -49,7 +65,7 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
         try {
             User user = authService.login(request);
-            String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+            AuthTokens tokens = authTokenService.issue(user);
             AuthResponse response = new AuthResponse(
                 "Login successful",
                 user.getId(),
@@ -58,9 +74,12 @@ public class AuthController {
                 user.getGender(),
                 user.getMobile(),
                 user.getRole().name(),
-                token
+                tokens.getAccessToken(),
+                tokens.getRefreshToken()
             );
             return ResponseEntity.ok(response);
+        } catch (PasswordHasher.OverloadedException e) {
+            return overloaded(e);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new AuthResponse(e.getMessage(), null, null, null, null, null, null, null));
@@ -68,7 +87,13 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            JwtUtil.VerifiedToken verified = jwtUtil.verify(authHeader.substring(7));
+            if (verified != null) {
+                authTokenService.revokeSession(verified.getTokenId());
+            }
+        }
         SecurityContextHolder.clearContext();
         return ResponseEntity.ok().body(new AuthResponse("Logout successful", null, null, null, null, null, null, null));
     }
@@ -78,18 +103,17 @@ public class AuthController {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
-                String email = jwtUtil.extractEmail(token);
-                String role = jwtUtil.extractRole(token);
+                JwtUtil.VerifiedToken verified = jwtUtil.verify(token);
                 
-                if (jwtUtil.validateToken(token, email)) {
+                if (verified != null && !tokenRevocations.isRevoked(verified.getTokenId())) {
                     AuthResponse response = new AuthResponse(
                         "Session valid",
                         null,
                         null,
-                        email,
+                        verified.getEmail(),
                         null,
                         null,
-                        role,
+                        verified.getRole(),
                         token
                     );
                     return ResponseEntity.ok(response);
@@ -104,32 +128,36 @@ public class AuthController {
     }
     
     @PostMapping("/refresh")
-    public ResponseEntity<?> refreshToken(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> refreshToken(@RequestBody Map<String, String> request) {
         try {
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                String email = jwtUtil.extractEmail(token);
-                String role = jwtUtil.extractRole(token);
-                
-                String newToken = jwtUtil.generateToken(email, role);
+            String refreshToken = request.get("refreshToken");
+            AuthTokens tokens = refreshToken == null ? null : authTokenService.rotate(refreshToken);
+            if (tokens != null) {
+                User user = tokens.getUser();
                 AuthResponse response = new AuthResponse(
                     "Token refreshed successfully",
-                    null,
-                    null,
-                    email,
-                    null,
-                    null,
-                    role,
-                    newToken
+                    user.getId(),
+                    user.getName(),
+                    user.getEmail(),
+                    user.getGender(),
+                    user.getMobile(),
+                    user.getRole().name(),
+                    tokens.getAccessToken(),
+                    tokens.getRefreshToken()
                 );
                 return ResponseEntity.ok(response);
             }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                .body(new AuthResponse("Invalid token", null, null, null, null, null, null, null));
+                .body(new AuthResponse("Invalid or expired refresh token", null, null, null, null, null, null, null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(new AuthResponse("Token refresh failed", null, null, null, null, null, null, null));
         }
     }
     
+    private static ResponseEntity<?> overloaded(PasswordHasher.OverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(new AuthResponse(e.getMessage(), null, null, null, null, null, null, null));
+    }
 }
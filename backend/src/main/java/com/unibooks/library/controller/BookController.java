@@ -1,14 +1,24 @@
 package com.unibooks.library.controller;
 
+import com.unibooks.library.dto.BookImportReport;
+import com.unibooks.library.dto.BookPageResponse;
 import com.unibooks.library.dto.BookRequest;
 import com.unibooks.library.dto.BookResponse;
+import com.unibooks.library.dto.SuggestionResponse;
+import com.unibooks.library.service.BookImportService;
 import com.unibooks.library.service.BookService;
+import com.unibooks.library.service.ExportService;
+import com.unibooks.library.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -19,6 +29,12 @@ public class BookController {
     @Autowired
     private BookService bookService;
     
+    @Autowired
+    private BookImportService bookImportService;
+    
+    @Autowired
+    private ExportService exportService;
+    
     @PostMapping
     @PreAuthorize("hasAnyAuthority('ADMIN', 'LIBRARIAN')")
     public ResponseEntity<?> addBook(@RequestBody BookRequest request) {
@@ -33,6 +49,46 @@ public class BookController {
         }
     }
     
+    @PostMapping("/import")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<?> importBooks(@RequestParam(defaultValue = "csv") String format, InputStream body) {
+        try {
+            BookImportReport report = bookImportService.importBooks(body, format);
+            ResponseEntity<?> result = ResponseEntity.ok(report);
+            return result;
+        } catch (Exception e) {
+            String errorMessage = "Error importing books: " + e.getMessage();
+            ResponseEntity<?> errorResponse = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
+            return errorResponse;
+        }
+    }
+    
+    @GetMapping("/imports")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<List<BookImportReport>> getRecentImports() {
+        List<BookImportReport> reports = bookImportService.getRecentImports();
+        ResponseEntity<List<BookImportReport>> result = ResponseEntity.ok(reports);
+        return result;
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<?> exportBooks(@RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            String exportFormat = ExportService.normalizeFormat(format);
+            StreamingResponseBody body = out -> exportService.exportBooks(out, exportFormat);
+            ResponseEntity<?> result = ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=books." + exportFormat)
+                    .contentType(MediaType.parseMediaType(exportFormat.equals(ExportService.FORMAT_CSV) ? "text/csv" : "application/x-ndjson"))
+                    .body(body);
+            return result;
+        } catch (Exception e) {
+            String errorMessage = "Error exporting books: " + e.getMessage();
+            ResponseEntity<?> errorResponse = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
+            return errorResponse;
+        }
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ADMIN', 'LIBRARIAN')")
     public ResponseEntity<?> updateBook(@PathVariable Long id, @RequestBody BookRequest request) {
@@ -75,13 +131,54 @@ public class BookController {
         }
     }
     
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<BookResponse>> getSimilarBooks(@PathVariable Long id, @RequestParam(required = false) Integer limit) {
+        List<BookResponse> books = bookService.getSimilarBooks(id, limit);
+        ResponseEntity<List<BookResponse>> result = ResponseEntity.ok(books);
+        return result;
+    }
+    
+    // capped at the first titles; X-Has-More tells clients to page through /page instead
     @GetMapping
     public ResponseEntity<List<BookResponse>> getAllBooks() {
-        List<BookResponse> books = bookService.getAllBooks();
+        BookPageResponse page = bookService.getAllBooks();
+        ResponseEntity<List<BookResponse>> result = ResponseEntity.ok()
+                .header(CursorCodec.HAS_MORE_HEADER, String.valueOf(page.isHasMore()))
+                .body(page.getItems());
+        return result;
+    }
+    
+    @GetMapping("/page")
+    public ResponseEntity<?> getBooksPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "title") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) Integer size) {
+        try {
+            BookPageResponse page = bookService.getBooksPage(sort, direction, cursor, size);
+            ResponseEntity<?> result = ResponseEntity.ok(page);
+            return result;
+        } catch (Exception e) {
+            String errorMessage = "Error listing books: " + e.getMessage();
+            ResponseEntity<?> errorResponse = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorMessage);
+            return errorResponse;
+        }
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<List<BookResponse>> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        List<BookResponse> books = bookService.searchBooks(q, limit);
         ResponseEntity<List<BookResponse>> result = ResponseEntity.ok(books);
         return result;
     }
     
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        List<SuggestionResponse> suggestions = bookService.suggest(prefix, limit);
+        ResponseEntity<List<SuggestionResponse>> result = ResponseEntity.ok(suggestions);
+        return result;
+    }
+    
     @GetMapping("/search/title")
     public ResponseEntity<List<BookResponse>> searchByTitle(@RequestParam String title) {
         List<BookResponse> books = bookService.searchBooksByTitle(title);
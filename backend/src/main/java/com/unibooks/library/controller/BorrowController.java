@@ -1,14 +1,24 @@
 package com.unibooks.library.controller;
 
+import com.unibooks.library.dto.BorrowPageResponse;
 import com.unibooks.library.dto.BorrowRequest;
 import com.unibooks.library.dto.BorrowResponse;
+import com.unibooks.library.dto.BorrowSearchCriteria;
+import com.unibooks.library.dto.BulkDecisionRequest;
+import com.unibooks.library.dto.BulkDecisionResponse;
 import com.unibooks.library.dto.ReturnRequest;
 import com.unibooks.library.service.BorrowService;
+import com.unibooks.library.service.ExportService;
+import com.unibooks.library.service.IdempotencyStore;
+import com.unibooks.library.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,41 +32,56 @@ public class BorrowController {
     @Autowired
     private BorrowService borrowService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @PostMapping("/borrow")
-    public ResponseEntity<?> borrowBook(@RequestBody BorrowRequest request) {
-        try {
-            BorrowResponse response = borrowService.borrowBook(request);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        }
+    public ResponseEntity<?> borrowBook(@RequestBody BorrowRequest request,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "borrow", request, () -> {
+            try {
+                BorrowResponse response = borrowService.borrowBook(request);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        });
     }
 
     @PostMapping("/return")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
-    public ResponseEntity<?> returnBook(@RequestBody ReturnRequest request) {
-        try {
-            BorrowResponse response = borrowService.returnBook(request);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        }
+    public ResponseEntity<?> returnBook(@RequestBody ReturnRequest request,
+                                        @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "return", request, () -> {
+            try {
+                BorrowResponse response = borrowService.returnBook(request);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        });
     }
 
     @PostMapping("/renew/{borrowRecordId}")
-    public ResponseEntity<?> renewBook(@PathVariable Long borrowRecordId, @RequestParam(required = false) Integer additionalDays) {
-        try {
-            BorrowResponse response = borrowService.renewBook(borrowRecordId, additionalDays);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        }
+    public ResponseEntity<?> renewBook(@PathVariable Long borrowRecordId, @RequestParam(required = false) Integer additionalDays,
+                                       @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "renew/" + borrowRecordId, additionalDays, () -> {
+            try {
+                BorrowResponse response = borrowService.renewBook(borrowRecordId, additionalDays);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        });
     }
 
     @GetMapping("/user/{userId}")
@@ -74,22 +99,52 @@ public class BorrowController {
     @GetMapping("/all")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
     public ResponseEntity<List<BorrowResponse>> getAllBorrowRecords() {
-        List<BorrowResponse> records = borrowService.getAllBorrowRecords();
-        return ResponseEntity.ok(records);
+        return cappedList(borrowService.getAllBorrowRecords());
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<?> searchBorrowRecords(
+            @ModelAttribute BorrowSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            BorrowPageResponse page = borrowService.searchBorrowRecords(criteria, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<?> exportBorrowRecords(@RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            String exportFormat = ExportService.normalizeFormat(format);
+            StreamingResponseBody body = out -> exportService.exportBorrowRecords(out, exportFormat);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=borrow-records." + exportFormat)
+                    .contentType(MediaType.parseMediaType(exportFormat.equals(ExportService.FORMAT_CSV) ? "text/csv" : "application/x-ndjson"))
+                    .body(body);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
     }
 
     @GetMapping("/active")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
     public ResponseEntity<List<BorrowResponse>> getActiveBorrows() {
-        List<BorrowResponse> activeBorrows = borrowService.getActiveBorrows();
-        return ResponseEntity.ok(activeBorrows);
+        return cappedList(borrowService.getActiveBorrows());
     }
 
     @GetMapping("/overdue")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
     public ResponseEntity<List<BorrowResponse>> getOverdueBorrows() {
-        List<BorrowResponse> overdueBorrows = borrowService.getOverdueBorrows();
-        return ResponseEntity.ok(overdueBorrows);
+        return cappedList(borrowService.getOverdueBorrows());
     }
 
     @GetMapping("/pending")
@@ -107,9 +162,25 @@ public class BorrowController {
 
     @PostMapping("/approve/{borrowRecordId}")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
-    public ResponseEntity<?> approveBorrowRequest(@PathVariable Long borrowRecordId) {
+    public ResponseEntity<?> approveBorrowRequest(@PathVariable Long borrowRecordId,
+                                                  @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute(idempotencyKey, "approve/" + borrowRecordId, null, () -> {
+            try {
+                BorrowResponse response = borrowService.approveBorrowRequest(borrowRecordId);
+                return ResponseEntity.ok(response);
+            } catch (Exception e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        });
+    }
+
+    @PostMapping("/decisions")
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<?> bulkDecide(@RequestBody BulkDecisionRequest request) {
         try {
-            BorrowResponse response = borrowService.approveBorrowRequest(borrowRecordId);
+            BulkDecisionResponse response = borrowService.bulkDecide(request);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -145,4 +216,11 @@ public class BorrowController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
     }
+
+    // newest first; clients that need everything page through /search instead
+    private static ResponseEntity<List<BorrowResponse>> cappedList(BorrowPageResponse page) {
+        return ResponseEntity.ok()
+                .header(CursorCodec.HAS_MORE_HEADER, String.valueOf(page.isHasMore()))
+                .body(page.getItems());
+    }
 }
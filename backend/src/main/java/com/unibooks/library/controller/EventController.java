@@ -0,0 +1,46 @@
+package com.unibooks.library.controller;
+
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.service.LibraryEventBus;
+import com.unibooks.library.service.UserPrincipalCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    @Autowired
+    private LibraryEventBus libraryEventBus;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> subscribe(Authentication authentication) {
+        try {
+            boolean staff = authentication.getAuthorities().stream()
+                    .anyMatch(a -> a.getAuthority().equals("LIBRARIAN") || a.getAuthority().equals("ADMIN"));
+            Long userId = userPrincipalCache.findByEmail(authentication.getName())
+                    .map(UserPrincipal::getId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            SseEmitter emitter = libraryEventBus.subscribe(userId, staff);
+            return ResponseEntity.ok()
+                    .header("X-Accel-Buffering", "no")
+                    .body(emitter);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON).body(error);
+        }
+    }
+}
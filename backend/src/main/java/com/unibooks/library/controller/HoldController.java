@@ -0,0 +1,109 @@
+package com.unibooks.library.controller;
+
+import com.unibooks.library.dto.HoldRequest;
+import com.unibooks.library.dto.HoldResponse;
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.service.HoldService;
+import com.unibooks.library.service.UserPrincipalCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class HoldController {
+
+    private final HoldService holdService;
+    private final UserPrincipalCache userPrincipalCache;
+
+    @PostMapping
+    public ResponseEntity<?> placeHold(@RequestBody HoldRequest request, Authentication authentication) {
+        try {
+            if (!isStaff(authentication)) {
+                // only staff can queue a course reserve ahead of ordinary holds
+                if (request.getPriority() != null && request.getPriority() > 0) {
+                    throw new RuntimeException("Only librarians can set hold priority");
+                }
+                // and only staff can place a hold for someone else
+                request.setUserId(callerId(authentication));
+            }
+            HoldResponse response = holdService.placeHold(request);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<?> getUserHolds(@PathVariable Long userId, Authentication authentication) {
+        if (!isStaff(authentication) && !userId.equals(callerId(authentication))) {
+            return forbidden("You can only view your own holds");
+        }
+        List<HoldResponse> holds = holdService.getUserHolds(userId);
+        return ResponseEntity.ok(holds);
+    }
+
+    @GetMapping("/book/{bookId}")
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<List<HoldResponse>> getBookQueue(@PathVariable Long bookId) {
+        List<HoldResponse> queue = holdService.getBookQueue(bookId);
+        return ResponseEntity.ok(queue);
+    }
+
+    @PostMapping("/{holdId}/fulfill")
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<?> fulfillHold(@PathVariable Long holdId) {
+        try {
+            HoldResponse response = holdService.fulfillHold(holdId);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @PostMapping("/{holdId}/cancel")
+    public ResponseEntity<?> cancelHold(@PathVariable Long holdId, Authentication authentication) {
+        try {
+            Long ownerId = isStaff(authentication) ? null : callerId(authentication);
+            HoldResponse response = holdService.cancelHold(holdId, ownerId);
+            return ResponseEntity.ok(response);
+        } catch (AccessDeniedException e) {
+            return forbidden(e.getMessage());
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    private Long callerId(Authentication authentication) {
+        return userPrincipalCache.findByEmail(authentication.getName())
+                .map(UserPrincipal::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private static ResponseEntity<Map<String, String>> forbidden(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+    }
+
+    private static boolean isStaff(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("LIBRARIAN") || a.getAuthority().equals("ADMIN"));
+    }
+}
@@ -0,0 +1,23 @@
+package com.unibooks.library.controller;
+
+import com.unibooks.library.dto.LibraryStatsResponse;
+import com.unibooks.library.service.LibraryStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    @Autowired
+    private LibraryStats libraryStats;
+
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
+    public ResponseEntity<LibraryStatsResponse> getStats() {
+        return ResponseEntity.ok(libraryStats.snapshot());
+    }
+}
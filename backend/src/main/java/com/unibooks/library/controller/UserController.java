@@ -1,15 +1,21 @@
 package com.unibooks.library.controller;
 
+import com.unibooks.library.dto.UserPageResponse;
+import com.unibooks.library.dto.UserSearchCriteria;
 import com.unibooks.library.model.User;
 import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.service.AuthTokenService;
+import com.unibooks.library.service.LibraryStats;
+import com.unibooks.library.service.PasswordHasher;
+import com.unibooks.library.service.UserPrincipalCache;
+import com.unibooks.library.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/users")
@@ -18,22 +24,33 @@ import java.util.Map;
 public class UserController {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final LibraryStats libraryStats;
+    private final AuthTokenService authTokenService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final UserService userService;
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userRepository.findAll();
-
-        users.forEach(user -> user.setPassword(null));
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getUsers(
+            @ModelAttribute UserSearchCriteria criteria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) Integer size) {
+        try {
+            UserPageResponse page = userService.getUsersPage(criteria, sort, direction, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Failed to list users: " + e.getMessage()));
+        }
     }
 
     @PostMapping("/register")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
     public ResponseEntity<?> registerUser(@RequestBody Map<String, String> userData) {
         try {
-            if (userRepository.findByEmail(userData.get("email")).isPresent()) {
+            if (userRepository.existsByEmail(userData.get("email"))) {
                 return ResponseEntity.badRequest().body(Map.of("message", "Email already exists"));
             }
 
@@ -42,7 +59,7 @@ public class UserController {
             newUser.setEmail(userData.get("email"));
             newUser.setGender(userData.get("gender"));
             newUser.setMobile(userData.get("mobile"));
-            newUser.setPassword(passwordEncoder.encode(userData.get("password")));
+            newUser.setPassword(passwordHasher.encode(userData.get("password")));
             
             String roleStr = userData.get("role");
             if (roleStr != null && !roleStr.isEmpty()) {
@@ -56,6 +73,8 @@ public class UserController {
             }
 
             User savedUser = userRepository.save(newUser);
+            userPrincipalCache.invalidate(savedUser.getId(), savedUser.getEmail());
+            libraryStats.userAdded(savedUser.getRole());
             savedUser.setPassword(null);
             return ResponseEntity.ok(savedUser);
         } catch (Exception e) {
@@ -66,11 +85,8 @@ public class UserController {
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN', 'USER')")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
-        return userRepository.findById(id)
-                .map(user -> {
-                    user.setPassword(null);
-                    return ResponseEntity.ok(user);
-                })
+        return userPrincipalCache.findById(id)
+                .map(principal -> ResponseEntity.ok(principal.toUser()))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -79,13 +95,15 @@ public class UserController {
     public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
         return userRepository.findById(id)
                 .map(user -> {
+                    User.Role previousRole = user.getRole();
+                    String previousEmail = user.getEmail();
+                    String previousPassword = user.getPassword();
                     if (updates.containsKey("name")) {
                         user.setName((String) updates.get("name"));
                     }
                     if (updates.containsKey("email")) {
                         String newEmail = (String) updates.get("email");
-                        if (userRepository.findByEmail(newEmail).isPresent() && 
-                            !userRepository.findByEmail(newEmail).get().getId().equals(id)) {
+                        if (userRepository.findByEmail(newEmail).filter(other -> !other.getId().equals(id)).isPresent()) {
                             return ResponseEntity.badRequest().body(Map.of("message", "Email already exists"));
                         }
                         user.setEmail(newEmail);
@@ -101,10 +119,17 @@ public class UserController {
                     }
                     if (updates.containsKey("password") && updates.get("password") != null && 
                         !((String) updates.get("password")).isEmpty()) {
-                        user.setPassword(passwordEncoder.encode((String) updates.get("password")));
+                        user.setPassword(passwordHasher.encode((String) updates.get("password")));
                     }
                     
                     User savedUser = userRepository.save(user);
+                    userPrincipalCache.invalidate(id, previousEmail, savedUser.getEmail());
+                    libraryStats.userRoleChanged(previousRole, savedUser.getRole());
+                    // tokens carry the email and role they were issued with, so sign the user out everywhere
+                    if (previousRole != savedUser.getRole() || !previousEmail.equals(savedUser.getEmail())
+                            || !previousPassword.equals(savedUser.getPassword())) {
+                        authTokenService.revokeUser(id);
+                    }
                     savedUser.setPassword(null);
                     return ResponseEntity.ok(savedUser);
                 })
@@ -114,17 +139,24 @@ public class UserController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        if (!userRepository.existsById(id)) {
+        Optional<User> user = userRepository.findById(id);
+        if (user.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         
         userRepository.deleteById(id);
+        userPrincipalCache.invalidate(id, user.get().getEmail());
+        libraryStats.userRemoved(user.get().getRole());
+        authTokenService.revokeUser(id);
         return ResponseEntity.ok(Map.of("message", "User deleted successfully"));
     }
 
     @GetMapping("/count")
     @PreAuthorize("hasAnyAuthority('LIBRARIAN', 'ADMIN')")
-    public ResponseEntity<Long> getUserCount() {
+    public ResponseEntity<Long> getUserCount(@RequestParam(required = false) User.Role role) {
+        if (role != null) {
+            return ResponseEntity.ok(libraryStats.userCount(role));
+        }
         return ResponseEntity.ok(userRepository.count());
     }
 }
@@ -0,0 +1,20 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalyticsResponse {
+    private String granularity;
+    private LocalDate from;
+    private LocalDate to;
+    private String category;
+    private List<AnalyticsRow> buckets;
+    private List<AnalyticsRow> categories;
+}
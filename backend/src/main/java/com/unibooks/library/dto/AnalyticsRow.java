@@ -0,0 +1,22 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalyticsRow {
+    // null for a category's totals over the whole range
+    private LocalDateTime bucketStart;
+    private String category;
+    private long borrowed;
+    private long returned;
+    private Double averageLoanDays;
+    private long overdue;
+    private long returnedLate;
+    private Double overdueRate;
+}
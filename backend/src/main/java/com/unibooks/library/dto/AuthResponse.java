@@ -14,4 +14,10 @@ public class AuthResponse {
     private String mobile;
     private String role;
     private String token;
+    private String refreshToken;
+
+    public AuthResponse(String message, Long userId, String name, String email, String gender, String mobile,
+                        String role, String token) {
+        this(message, userId, name, email, gender, mobile, role, token, null);
+    }
 }
@@ -0,0 +1,13 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AuthTokens {
+    private User user;
+    private String accessToken;
+    private String refreshToken;
+}
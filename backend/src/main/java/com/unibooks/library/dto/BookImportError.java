@@ -0,0 +1,14 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportError {
+    private Long line;
+    private String isbn;
+    private String message;
+}
@@ -0,0 +1,22 @@
+package com.unibooks.library.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BookImportReport {
+    private String id;
+    private String status;
+    private String format;
+    private long rowsRead;
+    private long inserted;
+    private long duplicates;
+    private long failed;
+    private List<BookImportError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPageResponse {
+    private List<BookResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
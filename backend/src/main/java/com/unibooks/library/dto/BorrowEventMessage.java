@@ -0,0 +1,21 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorrowEventMessage {
+    private Long id;
+    private Long borrowRecordId;
+    private Long userId;
+    private Long bookId;
+    private BorrowStatus fromStatus;
+    private BorrowStatus toStatus;
+    private LocalDateTime occurredAt;
+}
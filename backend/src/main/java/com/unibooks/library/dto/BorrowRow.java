@@ -0,0 +1,29 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BorrowRow {
+    private Long id;
+    private Long userId;
+    private String userName;
+    private String userEmail;
+    private Long bookId;
+    private String bookTitle;
+    private String bookAuthor;
+    private String bookIsbn;
+    private LocalDateTime borrowDate;
+    private LocalDateTime dueDate;
+    private LocalDateTime returnDate;
+    private LocalDateTime approvedDate;
+    private BorrowStatus status;
+    private Double fineAmount;
+    private String rejectionReason;
+}
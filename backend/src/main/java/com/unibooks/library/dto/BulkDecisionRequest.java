@@ -0,0 +1,19 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDecisionRequest {
+    private String action;
+    private List<Long> borrowRecordIds;
+    private Long bookId;
+    private Long userId;
+    private Integer limit;
+    private String reason;
+}
@@ -0,0 +1,14 @@
+package com.unibooks.library.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkDecisionResponse {
+    private int approved;
+    private int rejected;
+    private int failed;
+    private List<BulkDecisionResult> results = new ArrayList<>();
+}
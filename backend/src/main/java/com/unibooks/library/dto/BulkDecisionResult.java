@@ -0,0 +1,14 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDecisionResult {
+    private Long borrowRecordId;
+    private String outcome;
+    private String message;
+}
@@ -0,0 +1,14 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldRequest {
+    private Long userId;
+    private Long bookId;
+    private Integer priority;
+}
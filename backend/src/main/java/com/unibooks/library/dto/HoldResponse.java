@@ -0,0 +1,25 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.Hold.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldResponse {
+    private Long id;
+    private Long userId;
+    private String userName;
+    private Long bookId;
+    private String bookTitle;
+    private int priority;
+    private HoldStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    private Long queuePosition;
+}
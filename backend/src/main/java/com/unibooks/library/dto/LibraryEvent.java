@@ -0,0 +1,28 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LibraryEvent {
+
+    public enum Type {
+        BORROW_REQUESTED,
+        BORROW_APPROVED,
+        BORROW_REJECTED,
+        BOOK_RETURNED,
+        AVAILABILITY_CHANGED,
+        HOLD_READY
+    }
+
+    private Type type;
+    private Long borrowRecordId;
+    private Long userId;
+    private Long bookId;
+    private LocalDateTime occurredAt;
+}
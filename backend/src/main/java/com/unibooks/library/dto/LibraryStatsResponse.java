@@ -0,0 +1,24 @@
+package com.unibooks.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LibraryStatsResponse {
+    private long totalBooks;
+    private long totalUsers;
+    private long students;
+    private long librarians;
+    private long admins;
+    private long pendingRequests;
+    private long activeBorrows;
+    private long overdueBorrows;
+    private long returnedBorrows;
+    private double finesOutstanding;
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,35 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** The parts of a user that requests need to know who is calling; never the password. */
+@Data
+@AllArgsConstructor
+public class UserPrincipal {
+    private Long id;
+    private String email;
+    private String name;
+    private String gender;
+    private String mobile;
+    private User.Role role;
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getName(), user.getGender(), user.getMobile(),
+                user.getRole());
+    }
+
+    /** A detached user for responses that return the user itself, with the password left out. */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        user.setGender(gender);
+        user.setMobile(mobile);
+        user.setRole(role);
+        user.setPassword(null);
+        return user;
+    }
+}
@@ -0,0 +1,13 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.User;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class UserSearchCriteria {
+    // prefix of the name, email or mobile number
+    private String q;
+    private User.Role role;
+}
@@ -0,0 +1,19 @@
+package com.unibooks.library.dto;
+
+import com.unibooks.library.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A row of the user directory, selected column by column so the password hash is never read. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String name;
+    private String email;
+    private String gender;
+    private String mobile;
+    private User.Role role;
+}
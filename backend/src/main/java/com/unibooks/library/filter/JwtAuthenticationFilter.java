@@ -1,5 +1,6 @@
 package com.unibooks.library.filter;
 
+import com.unibooks.library.service.TokenRevocations;
 import com.unibooks.library.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,32 +20,34 @@ import java.util.Collections;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String EVENT_STREAM_PATH = "/api/events";
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         String authorizationHeader = request.getHeader("Authorization");
 
-        String email = null;
         String jwt = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
-            try {
-                email = jwtUtil.extractEmail(jwt);
-            } catch (Exception e) {
-
-            }
+        } else if (EVENT_STREAM_PATH.equals(request.getRequestURI())) {
+            // EventSource cannot send headers, so the event stream also accepts the token as a query parameter
+            jwt = request.getParameter("token");
         }
 
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, email)) {
-                String role = jwtUtil.extractRole(jwt);
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority(role);
-                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(email,
+        if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtUtil.VerifiedToken verified = jwtUtil.verify(jwt);
+            if (verified != null && !tokenRevocations.isRevoked(verified.getTokenId())) {
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority(verified.getRole());
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(verified.getEmail(),
                         null, Collections.singletonList(authority));
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
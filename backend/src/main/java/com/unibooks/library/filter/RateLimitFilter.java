@@ -0,0 +1,234 @@
+package com.unibooks.library.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibooks.library.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for expensive endpoints: login and register hash
+ * passwords, borrowing takes row locks. Each route has its own token bucket
+ * per client. Borrowing is keyed by the authenticated user. Login and register
+ * are keyed by the email in the body together with the IP address, so readers
+ * behind one campus NAT do not share a bucket, and each IP address also has a
+ * looser ceiling that bounds guessing across many emails. Refused requests get
+ * 429 with Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long MAX_TRACKED_CLIENTS = 100_000;
+    private static final long START_NANOS = System.nanoTime();
+    // login and register bodies are a few fields; anything larger is keyed by IP alone
+    private static final int MAX_BUFFERED_BODY_BYTES = 8192;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final List<Route> routes;
+
+    private enum Key { CLIENT, IP, EMAIL_AND_IP }
+
+    private static final class Route {
+        private final String method;
+        private final String path;
+        private final Key key;
+        private final TokenBucket bucket;
+        private final Cache<String, AtomicLong> clients;
+        private final Counter rejected;
+
+        Route(String name, String method, String path, Key key, int perMinute, MeterRegistry meterRegistry) {
+            this.method = method;
+            this.path = path;
+            this.key = key;
+            this.bucket = new TokenBucket(perMinute, TimeUnit.MINUTES.toMillis(1), perMinute);
+            // an idle bucket is full again after millisToFill, so dropping it then loses nothing
+            this.clients = Caffeine.newBuilder()
+                    .maximumSize(MAX_TRACKED_CLIENTS)
+                    .expireAfterAccess(Duration.ofMillis(bucket.getMillisToFill()))
+                    .build();
+            this.rejected = Counter.builder("library.ratelimit.rejected")
+                    .tag("route", name)
+                    .description("Requests refused with 429")
+                    .register(meterRegistry);
+        }
+
+        boolean matches(HttpServletRequest request) {
+            return method.equals(request.getMethod()) && path.equals(request.getRequestURI());
+        }
+    }
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${library.rate-limit.login-per-minute:10}") int loginPerMinute,
+                           @Value("${library.rate-limit.login-per-ip-per-minute:300}") int loginPerIpPerMinute,
+                           @Value("${library.rate-limit.register-per-minute:5}") int registerPerMinute,
+                           @Value("${library.rate-limit.register-per-ip-per-minute:60}") int registerPerIpPerMinute,
+                           @Value("${library.rate-limit.borrow-per-minute:30}") int borrowPerMinute) {
+        routes = List.of(
+                new Route("login-ip", "POST", "/api/auth/login", Key.IP, loginPerIpPerMinute, meterRegistry),
+                new Route("login", "POST", "/api/auth/login", Key.EMAIL_AND_IP, loginPerMinute, meterRegistry),
+                new Route("register-ip", "POST", "/api/auth/register", Key.IP, registerPerIpPerMinute, meterRegistry),
+                new Route("register", "POST", "/api/auth/register", Key.EMAIL_AND_IP, registerPerMinute, meterRegistry),
+                new Route("borrow", "POST", "/api/borrows/borrow", Key.CLIENT, borrowPerMinute, meterRegistry));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        BufferedBodyRequest buffered = null;
+        for (Route route : routes) {
+            if (route.matches(request)) {
+                if (route.key == Key.EMAIL_AND_IP && buffered == null) {
+                    buffered = BufferedBodyRequest.of(request);
+                }
+                long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - START_NANOS);
+                AtomicLong state = route.clients.get(clientKey(route.key, request, buffered),
+                        key -> route.bucket.newState(now));
+                long waitMillis = route.bucket.tryAcquire(state, now);
+                if (waitMillis > 0) {
+                    route.rejected.increment();
+                    reject(response, waitMillis);
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(buffered != null ? buffered : request, response);
+    }
+
+    private static String clientKey(Key key, HttpServletRequest request, BufferedBodyRequest buffered) {
+        // getRemoteAddr is the client only when server.forward-headers-strategy trusts the proxy in front
+        String ip = request.getRemoteAddr();
+        switch (key) {
+            case EMAIL_AND_IP:
+                return "email:" + buffered.email() + "|ip:" + ip;
+            case CLIENT:
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+                    return "user:" + authentication.getName();
+                }
+                return "ip:" + ip;
+            default:
+                return "ip:" + ip;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfterSeconds + " seconds\"}");
+    }
+
+    /**
+     * Holds a small request body in memory so the email can be read here and
+     * the controller still sees the whole body. Bodies that are too large or of
+     * unknown length are passed through untouched and have no email.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        private final String email;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body, String email) {
+            super(request);
+            this.body = body;
+            this.email = email;
+        }
+
+        static BufferedBodyRequest of(HttpServletRequest request) throws IOException {
+            long length = request.getContentLengthLong();
+            if (length < 0 || length > MAX_BUFFERED_BODY_BYTES) {
+                return new BufferedBodyRequest(request, null, "");
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_BUFFERED_BODY_BYTES);
+            return new BufferedBodyRequest(request, body, normalizedEmail(body));
+        }
+
+        private static String normalizedEmail(byte[] body) {
+            try {
+                JsonNode email = OBJECT_MAPPER.readTree(body).path("email");
+                return email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : "";
+            } catch (IOException | RuntimeException e) {
+                // malformed bodies are rejected by the controller; here they just have no email
+                return "";
+            }
+        }
+
+        String email() {
+            return email;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                return super.getInputStream();
+            }
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (body == null) {
+                return super.getReader();
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.unibooks.library.model;
+
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * One borrow status transition, written in the same transaction as the change
+ * itself. The event columns are never updated; {@code published} only tracks
+ * whether the outbox relay has delivered the row.
+ */
+@Entity
+@Table(name = "borrow_events", indexes = {
+        @Index(name = "idx_borrow_events_published_id", columnList = "published, id"),
+        @Index(name = "idx_borrow_events_record", columnList = "borrowRecordId, id")
+})
+@Data
+public class BorrowEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long borrowRecordId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private BorrowStatus fromStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BorrowStatus toStatus;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(nullable = false)
+    private boolean published = false;
+}
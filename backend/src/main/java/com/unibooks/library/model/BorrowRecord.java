@@ -1,11 +1,20 @@
 package com.unibooks.library.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrow_records")
+@Table(name = "borrow_records", indexes = {
+        @Index(name = "idx_borrow_status_due", columnList = "status, dueDate"),
+        @Index(name = "idx_borrow_date_id", columnList = "borrowDate, id"),
+        @Index(name = "idx_borrow_status_date_id", columnList = "status, borrowDate, id"),
+        @Index(name = "idx_borrow_user_date_id", columnList = "user_id, borrowDate, id"),
+        @Index(name = "idx_borrow_book_date_id", columnList = "book_id, borrowDate, id"),
+        @Index(name = "idx_borrow_has_fine_date_id", columnList = "hasFine, borrowDate, id")
+})
 @Data
 public class BorrowRecord {
     
@@ -13,11 +22,11 @@ public class BorrowRecord {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
     
@@ -36,6 +45,13 @@ public class BorrowRecord {
     
     @Column
     private Double fineAmount = 0.0;
+
+    // computed by MySQL from fine_amount; filtering on it by equality lets the
+    // index return fined records already in (borrowDate, id) order
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "BOOLEAN AS (COALESCE(fine_amount, 0) > 0) STORED")
+    @Setter(AccessLevel.NONE)
+    private Boolean hasFine;
     
     @Column
     private LocalDateTime approvedDate;
@@ -0,0 +1,53 @@
+package com.unibooks.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Borrow activity for one category in one hour, day or month, kept as running
+ * sums so analytics over long ranges read a few rows per bucket instead of
+ * scanning borrow_records. Averages and rates are derived from the sums.
+ */
+@Entity
+@Table(name = "borrow_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_borrow_rollups_bucket",
+                columnNames = {"granularity", "bucket_start", "category"}),
+        indexes = @Index(name = "idx_borrow_rollups_category", columnList = "granularity, category, bucket_start"))
+@Data
+public class BorrowRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private long borrowed;
+
+    @Column(nullable = false)
+    private long returned;
+
+    // total loan length of the returns, in seconds
+    @Column(nullable = false)
+    private long loanSeconds;
+
+    @Column(nullable = false)
+    private long overdue;
+
+    @Column(nullable = false)
+    private long returnedLate;
+
+    public enum Granularity {
+        HOUR, DAY, MONTH
+    }
+}
@@ -0,0 +1,53 @@
+package com.unibooks.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "holds", indexes = {
+        // priority descends like the queue does, so the head is the first index entry and needs no filesort
+        @Index(name = "idx_holds_queue_head", columnList = "book_id, status, priority DESC, createdAt, id"),
+        @Index(name = "idx_holds_status_expires", columnList = "status, expiresAt"),
+        @Index(name = "idx_holds_user_status", columnList = "user_id, status")
+})
+@Data
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    // course reserves are queued ahead of ordinary holds; FIFO within a priority
+    @Column(nullable = false)
+    private int priority = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status = HoldStatus.WAITING;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column
+    private LocalDateTime readyAt;
+
+    @Column
+    private LocalDateTime expiresAt;
+
+    public enum HoldStatus {
+        WAITING,
+        READY,
+        FULFILLED,
+        EXPIRED,
+        CANCELLED
+    }
+}
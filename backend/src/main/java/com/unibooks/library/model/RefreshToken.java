@@ -0,0 +1,55 @@
+package com.unibooks.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * One refresh token, stored as the SHA-256 of its value, together with the id
+ * and expiry of the access token issued alongside it so that revoking the row
+ * can revoke that access token too. Every refresh rotates the row: it is marked
+ * rotated and a new row joins the same family. Presenting a rotated token again
+ * means it was copied, and revokes the whole family.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_user", columnList = "userId"),
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_access_token", columnList = "accessTokenId"),
+        @Index(name = "idx_refresh_tokens_revoked_access", columnList = "revoked, accessExpiresAt")
+})
+@Data
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // no foreign key: rows outlive a deleted user long enough to keep revoking its access tokens
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false, length = 36)
+    private String accessTokenId;
+
+    @Column(nullable = false)
+    private LocalDateTime accessExpiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column
+    private LocalDateTime rotatedAt;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+}
@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_name_id", columnList = "name, id"),
+        @Index(name = "idx_users_role_name_id", columnList = "role, name, id"),
+        @Index(name = "idx_users_role_email_id", columnList = "role, email, id"),
+        @Index(name = "idx_users_mobile", columnList = "mobile")
+})
 @Data
 public class User {
     
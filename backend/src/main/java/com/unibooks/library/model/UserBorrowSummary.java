@@ -0,0 +1,22 @@
+package com.unibooks.library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Per-user count of borrow records that hold a slot against the borrowing
+ * limit (pending, borrowed or overdue), kept in step with status changes so the
+ * limit can be checked and reserved with a single conditional update.
+ */
+@Entity
+@Table(name = "user_borrow_summary")
+@Data
+public class UserBorrowSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int activeCount;
+}
@@ -1,20 +1,51 @@
 package com.unibooks.library.repository;
 
 import com.unibooks.library.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     Optional<Book> findByIsbn(String isbn);
 
     List<Book> findByCategory(String category);
 
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    List<Book> findByIsbnIn(Collection<String> isbns);
 
-    List<Book> findByAuthorContainingIgnoreCase(String author);
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id = :id AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id);
+
+    @Query(value = "SELECT id, available_copies FROM books WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockAvailableCopies(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - :count WHERE b.id = :id AND b.availableCopies >= :count")
+    int decrementAvailableCopiesBy(@Param("id") Long id, @Param("count") int count);
+
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BorrowRecordRepository.STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Book> streamAll();
+
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
 }
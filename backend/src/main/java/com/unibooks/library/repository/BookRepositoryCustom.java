@@ -0,0 +1,13 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.Book;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+
+    List<Book> findPageAfter(BookSort sort, boolean ascending, Comparable<?> lastValue, Long lastId, int limit);
+
+    void forEachBatch(int batchSize, Consumer<List<Book>> consumer);
+}
@@ -0,0 +1,65 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Book> findPageAfter(BookSort sort, boolean ascending, Comparable<?> lastValue, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        Path sortPath = book.get(sort.getProperty());
+        Path<Long> idPath = book.get("id");
+
+        if (lastValue != null && lastId != null) {
+            Comparable value = lastValue;
+            Predicate beyondValue = ascending ? cb.greaterThan(sortPath, value) : cb.lessThan(sortPath, value);
+            Predicate beyondId = ascending ? cb.greaterThan(idPath, lastId) : cb.lessThan(idPath, lastId);
+            query.where(cb.or(beyondValue, cb.and(cb.equal(sortPath, value), beyondId)));
+        }
+
+        if (ascending) {
+            query.orderBy(cb.asc(sortPath), cb.asc(idPath));
+        } else {
+            query.orderBy(cb.desc(sortPath), cb.desc(idPath));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public void forEachBatch(int batchSize, Consumer<List<Book>> consumer) {
+        Comparable<?> lastTitle = null;
+        Long lastId = null;
+        while (true) {
+            List<Book> batch = findPageAfter(BookSort.TITLE, true, lastTitle, lastId, batchSize);
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+            Book last = batch.get(batch.size() - 1);
+            lastTitle = last.getTitle();
+            lastId = last.getId();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.Book;
+
+public enum BookSort {
+    TITLE("title"),
+    AUTHOR("author"),
+    CATEGORY("category"),
+    AVAILABILITY("availableCopies");
+
+    private final String property;
+
+    BookSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Comparable<?> extract(Book book) {
+        switch (this) {
+            case AUTHOR:
+                return book.getAuthor();
+            case CATEGORY:
+                return book.getCategory();
+            case AVAILABILITY:
+                return book.getAvailableCopies();
+            default:
+                return book.getTitle();
+        }
+    }
+
+    public Comparable<?> parseValue(String raw) {
+        if (this == AVAILABILITY) {
+            return Integer.valueOf(raw);
+        }
+        return raw;
+    }
+
+    public static BookSort fromParam(String param) {
+        for (BookSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(param) || sort.property.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new RuntimeException("Unsupported sort field: " + param);
+    }
+}
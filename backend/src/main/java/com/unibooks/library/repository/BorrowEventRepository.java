@@ -0,0 +1,39 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.BorrowEvent;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BorrowEventRepository extends JpaRepository<BorrowEvent, Long> {
+
+    // SKIP LOCKED lets several relays share the backlog without delivering the same batch twice
+    @Query(value = "SELECT * FROM borrow_events WHERE published = false ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<BorrowEvent> lockUnpublished(@Param("limit") int limit);
+
+    // borrows, not renewals, that have committed but not been delivered yet
+    @Query("SELECT e.borrowRecordId FROM BorrowEvent e WHERE e.published = false AND e.toStatus = :borrowed "
+            + "AND (e.fromStatus IS NULL OR e.fromStatus <> :overdue)")
+    List<Long> findUndeliveredBorrowRecordIds(@Param("borrowed") BorrowStatus borrowed,
+                                              @Param("overdue") BorrowStatus overdue);
+
+    @Modifying
+    @Query("UPDATE BorrowEvent e SET e.published = true WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids);
+
+    // records BORROWED -> OVERDUE for exactly the rows the sweeper's set-based update is about to move
+    @Modifying
+    @Query(value = "INSERT INTO borrow_events (borrow_record_id, user_id, book_id, from_status, to_status, occurred_at, published) "
+            + "SELECT id, user_id, book_id, 'BORROWED', 'OVERDUE', :now, false FROM borrow_records "
+            + "WHERE status = 'BORROWED' AND due_date < :now", nativeQuery = true)
+    int recordOverdue(@Param("now") LocalDateTime now);
+}
@@ -1,18 +1,33 @@
 package com.unibooks.library.repository;
 
+import com.unibooks.library.dto.BorrowRow;
 import com.unibooks.library.model.BorrowRecord;
 import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
+public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long>, BorrowRecordRepositoryCustom {
+
+    String BORROW_ROW_SELECT = "SELECT new com.unibooks.library.dto.BorrowRow("
+            + "br.id, u.id, u.name, u.email, b.id, b.title, b.author, b.isbn, "
+            + "br.borrowDate, br.dueDate, br.returnDate, br.approvedDate, br.status, br.fineAmount, br.rejectionReason) "
+            + "FROM BorrowRecord br JOIN br.user u JOIN br.book b ";
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set
+    String STREAMING_FETCH_SIZE = "-2147483648";
     
     List<BorrowRecord> findByUserIdOrderByBorrowDateDesc(Long userId);
     
@@ -27,9 +42,78 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     @Query("SELECT br FROM BorrowRecord br WHERE br.user.id = :userId AND br.book.id = :bookId AND br.status = :status")
     Optional<BorrowRecord> findActiveBookBorrowByUser(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowStatus status);
 
+    @Query("SELECT br.status, COUNT(br) FROM BorrowRecord br GROUP BY br.status")
+    List<Object[]> countByStatus();
+
+    // one book's share of the totals, read through idx_borrow_book_date_id
+    @Query("SELECT br.status, COUNT(br), SUM(br.fineAmount) FROM BorrowRecord br WHERE br.book.id = :bookId GROUP BY br.status")
+    List<Object[]> countAndSumFinesByStatusForBook(@Param("bookId") Long bookId);
+
+    @Query("SELECT SUM(br.fineAmount) FROM BorrowRecord br WHERE br.status = :status")
+    Double sumFinesByStatus(@Param("status") BorrowStatus status);
+
+    @Query("SELECT br.status FROM BorrowRecord br WHERE br.user.id = :userId AND br.book.id = :bookId AND br.status IN :statuses")
+    List<BorrowStatus> findStatusesForUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId,
+                                                  @Param("statuses") Collection<BorrowStatus> statuses);
+
     long countByUserIdAndStatus(Long userId, BorrowStatus status);
     
     List<BorrowRecord> findByStatusOrderByBorrowDateDesc(BorrowStatus status);
     
     List<BorrowRecord> findByFineAmountGreaterThan(Double amount);
+
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :to WHERE br.id = :id AND br.status IN :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") Collection<BorrowStatus> from, @Param("to") BorrowStatus to);
+
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :overdue WHERE br.status = :borrowed AND br.dueDate < :now")
+    int markOverdue(@Param("now") LocalDateTime now, @Param("borrowed") BorrowStatus borrowed, @Param("overdue") BorrowStatus overdue);
+
+    // only rows whose whole-day count changed since the last sweep are written
+    @Modifying
+    @Query(value = "UPDATE borrow_records SET fine_amount = TIMESTAMPDIFF(DAY, due_date, :now) * :finePerDay "
+            + "WHERE status = 'OVERDUE' AND return_date IS NULL AND due_date < :now "
+            + "AND (fine_amount IS NULL OR fine_amount <> TIMESTAMPDIFF(DAY, due_date, :now) * :finePerDay)", nativeQuery = true)
+    int refreshOverdueFines(@Param("now") LocalDateTime now, @Param("finePerDay") double finePerDay);
+
+    @Query(value = "SELECT id, book_id, user_id, status FROM borrow_records "
+            + "WHERE id IN (:ids) ORDER BY borrow_date, id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockForDecision(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT id, book_id, user_id, status FROM borrow_records "
+            + "WHERE status = 'PENDING' AND (:bookId IS NULL OR book_id = :bookId) AND (:userId IS NULL OR user_id = :userId) "
+            + "ORDER BY borrow_date, id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockPendingForDecision(@Param("bookId") Long bookId, @Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :status, br.approvedDate = :approvedDate "
+            + "WHERE br.id IN :ids AND br.status = :pending")
+    int markApproved(@Param("ids") Collection<Long> ids, @Param("approvedDate") LocalDateTime approvedDate,
+                     @Param("status") BorrowStatus status, @Param("pending") BorrowStatus pending);
+
+    @Modifying
+    @Query("UPDATE BorrowRecord br SET br.status = :status, br.rejectionReason = :reason "
+            + "WHERE br.id IN :ids AND br.status = :pending")
+    int markRejected(@Param("ids") Collection<Long> ids, @Param("reason") String reason,
+                     @Param("status") BorrowStatus status, @Param("pending") BorrowStatus pending);
+
+    @Query(BORROW_ROW_SELECT + "WHERE br.id = :id")
+    Optional<BorrowRow> findRowById(@Param("id") Long id);
+
+    @Query(BORROW_ROW_SELECT + "WHERE u.id = :userId ORDER BY br.borrowDate DESC")
+    List<BorrowRow> findRowsByUser(@Param("userId") Long userId);
+
+    @Query(BORROW_ROW_SELECT + "WHERE u.id = :userId AND br.status = :status ORDER BY br.borrowDate DESC")
+    List<BorrowRow> findRowsByUserAndStatus(@Param("userId") Long userId, @Param("status") BorrowStatus status);
+
+    @Query(BORROW_ROW_SELECT + "WHERE br.status = :status ORDER BY br.borrowDate DESC")
+    List<BorrowRow> findRowsByStatus(@Param("status") BorrowStatus status);
+
+    @Query(BORROW_ROW_SELECT + "ORDER BY br.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE))
+    Stream<BorrowRow> streamAllRows();
+
+    @Query("SELECT br.book.id, COUNT(br) FROM BorrowRecord br GROUP BY br.book.id")
+    List<Object[]> countBorrowsPerBook();
 }
@@ -0,0 +1,12 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.BorrowRow;
+import com.unibooks.library.dto.BorrowSearchCriteria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BorrowRecordRepositoryCustom {
+
+    List<BorrowRow> searchPageAfter(BorrowSearchCriteria criteria, LocalDateTime lastBorrowDate, Long lastId, int limit);
+}
@@ -0,0 +1,113 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.BorrowRow;
+import com.unibooks.library.dto.BorrowSearchCriteria;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class BorrowRecordRepositoryImpl implements BorrowRecordRepositoryCustom {
+
+    private static final Comparator<BorrowRow> NEWEST_FIRST =
+            Comparator.comparing(BorrowRow::getBorrowDate).thenComparing(BorrowRow::getId).reversed();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Newest-first page of borrow rows matching every non-null filter, continuing
+     * after (lastBorrowDate, lastId). The composite indexes on borrow_records all
+     * end in (borrowDate, id), so an equality on their leading column reads rows
+     * already in page order and stops at the limit. A status IN (...) would have
+     * to sort every match, so several statuses are read with one seek each and
+     * the seeks are merged here.
+     */
+    @Override
+    public List<BorrowRow> searchPageAfter(BorrowSearchCriteria criteria, LocalDateTime lastBorrowDate, Long lastId, int limit) {
+        List<BorrowStatus> statuses = criteria.getStatus();
+        if (statuses == null || statuses.isEmpty()) {
+            return seek(criteria, null, lastBorrowDate, lastId, limit);
+        }
+        if (statuses.size() == 1) {
+            return seek(criteria, statuses.get(0), lastBorrowDate, lastId, limit);
+        }
+
+        List<BorrowRow> merged = new ArrayList<>();
+        for (BorrowStatus status : new LinkedHashSet<>(statuses)) {
+            merged.addAll(seek(criteria, status, lastBorrowDate, lastId, limit));
+        }
+        merged.sort(NEWEST_FIRST);
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    private List<BorrowRow> seek(BorrowSearchCriteria criteria, BorrowStatus status,
+                                 LocalDateTime lastBorrowDate, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BorrowRow> query = cb.createQuery(BorrowRow.class);
+        Root<BorrowRecord> record = query.from(BorrowRecord.class);
+        Join<BorrowRecord, User> user = record.join("user");
+        Join<BorrowRecord, Book> book = record.join("book");
+
+        Path<LocalDateTime> borrowDate = record.get("borrowDate");
+        Path<LocalDateTime> dueDate = record.get("dueDate");
+        Path<Long> id = record.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (status != null) {
+            predicates.add(cb.equal(record.get("status"), status));
+        }
+        if (criteria.getUserId() != null) {
+            predicates.add(cb.equal(user.get("id"), criteria.getUserId()));
+        }
+        if (criteria.getBookId() != null) {
+            predicates.add(cb.equal(book.get("id"), criteria.getBookId()));
+        }
+        if (criteria.getBorrowedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(borrowDate, criteria.getBorrowedFrom()));
+        }
+        if (criteria.getBorrowedTo() != null) {
+            predicates.add(cb.lessThan(borrowDate, criteria.getBorrowedTo()));
+        }
+        if (criteria.getDueFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(dueDate, criteria.getDueFrom()));
+        }
+        if (criteria.getDueTo() != null) {
+            predicates.add(cb.lessThan(dueDate, criteria.getDueTo()));
+        }
+        if (Boolean.TRUE.equals(criteria.getHasFine())) {
+            predicates.add(cb.equal(record.get("hasFine"), true));
+        }
+        if (lastBorrowDate != null && lastId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(borrowDate, lastBorrowDate),
+                    cb.and(cb.equal(borrowDate, lastBorrowDate), cb.lessThan(id, lastId))));
+        }
+
+        query.select(cb.construct(BorrowRow.class,
+                id, user.get("id"), user.get("name"), user.get("email"),
+                book.get("id"), book.get("title"), book.get("author"), book.get("isbn"),
+                borrowDate, dueDate, record.get("returnDate"), record.get("approvedDate"),
+                record.get("status"), record.get("fineAmount"), record.get("rejectionReason")));
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(borrowDate), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
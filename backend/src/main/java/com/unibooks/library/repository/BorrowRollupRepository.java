@@ -0,0 +1,85 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.BorrowRollup;
+import com.unibooks.library.model.BorrowRollup.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BorrowRollupRepository extends JpaRepository<BorrowRollup, Long> {
+
+    // adds a derived table of facts (occurred_at, category, borrowed, returned, loan_seconds, overdue, returned_late)
+    // to the hourly, daily and monthly bucket of each fact
+    String ROLLUP_INSERT = "INSERT INTO borrow_rollups "
+            + "(granularity, bucket_start, category, borrowed, returned, loan_seconds, overdue, returned_late) "
+            + "SELECT g.granularity, CAST(CASE g.granularity "
+            + "WHEN 'HOUR' THEN DATE_ADD(DATE(f.occurred_at), INTERVAL HOUR(f.occurred_at) HOUR) "
+            + "WHEN 'DAY' THEN DATE(f.occurred_at) "
+            + "ELSE DATE_SUB(DATE(f.occurred_at), INTERVAL DAYOFMONTH(f.occurred_at) - 1 DAY) END AS DATETIME) AS bucket_start, "
+            + "f.category, SUM(f.borrowed), SUM(f.returned), SUM(f.loan_seconds), SUM(f.overdue), SUM(f.returned_late) FROM (";
+
+    String ROLLUP_MERGE = ") f CROSS JOIN (SELECT 'HOUR' AS granularity UNION ALL SELECT 'DAY' UNION ALL SELECT 'MONTH') g "
+            + "GROUP BY g.granularity, bucket_start, f.category "
+            + "ON DUPLICATE KEY UPDATE borrowed = borrow_rollups.borrowed + VALUES(borrowed), "
+            + "returned = borrow_rollups.returned + VALUES(returned), "
+            + "loan_seconds = borrow_rollups.loan_seconds + VALUES(loan_seconds), "
+            + "overdue = borrow_rollups.overdue + VALUES(overdue), "
+            + "returned_late = borrow_rollups.returned_late + VALUES(returned_late)";
+
+    String LOAN_START = "COALESCE(r.approved_date, r.borrow_date)";
+
+    String CATEGORY = "COALESCE(b.category, 'Uncategorized')";
+
+    // renewals (OVERDUE -> BORROWED) are not new borrows. As in addHistory, a loan counts as overdue once, in the
+    // bucket of its due date, whether the sweeper marked it OVERDUE or it came back late before the sweep. Run
+    // through JDBC by BorrowAnalytics: a failed JPA query would doom the relay's transaction even past a savepoint
+    String ADD_EVENTS = ROLLUP_INSERT
+            + "SELECT e.occurred_at, " + CATEGORY + " AS category, "
+            + "CASE WHEN e.to_status = 'BORROWED' THEN 1 ELSE 0 END AS borrowed, "
+            + "CASE WHEN e.to_status = 'RETURNED' THEN 1 ELSE 0 END AS returned, "
+            + "CASE WHEN e.to_status = 'RETURNED' THEN TIMESTAMPDIFF(SECOND, " + LOAN_START + ", e.occurred_at) ELSE 0 END AS loan_seconds, "
+            + "0 AS overdue, "
+            + "CASE WHEN e.to_status = 'RETURNED' AND e.occurred_at > r.due_date THEN 1 ELSE 0 END AS returned_late "
+            + "FROM borrow_events e JOIN borrow_records r ON r.id = e.borrow_record_id JOIN books b ON b.id = e.book_id "
+            + "WHERE e.id IN (:eventIds) AND e.to_status IN ('BORROWED', 'RETURNED') "
+            + "AND (e.to_status <> 'BORROWED' OR e.from_status IS NULL OR e.from_status = 'PENDING') "
+            + "UNION ALL "
+            + "SELECT r.due_date, " + CATEGORY + ", 0, 0, 0, 1, 0 "
+            + "FROM borrow_events e JOIN borrow_records r ON r.id = e.borrow_record_id JOIN books b ON b.id = e.book_id "
+            + "WHERE e.id IN (:eventIds) AND (e.to_status = 'OVERDUE' "
+            + "OR (e.to_status = 'RETURNED' AND e.from_status = 'BORROWED' AND e.occurred_at > r.due_date))"
+            + ROLLUP_MERGE;
+
+    // borrows count when approved, returns when returned, and overdue loans at their due date
+    @Modifying
+    @Query(value = ROLLUP_INSERT
+            + "SELECT " + LOAN_START + " AS occurred_at, " + CATEGORY + " AS category, "
+            + "1 AS borrowed, 0 AS returned, 0 AS loan_seconds, 0 AS overdue, 0 AS returned_late "
+            + "FROM borrow_records r JOIN books b ON b.id = r.book_id WHERE r.status IN ('BORROWED', 'OVERDUE', 'RETURNED') "
+            + "UNION ALL "
+            + "SELECT r.return_date, " + CATEGORY + ", 0, 1, TIMESTAMPDIFF(SECOND, " + LOAN_START + ", r.return_date), 0, "
+            + "CASE WHEN r.return_date > r.due_date THEN 1 ELSE 0 END "
+            + "FROM borrow_records r JOIN books b ON b.id = r.book_id WHERE r.status = 'RETURNED' AND r.return_date IS NOT NULL "
+            + "UNION ALL "
+            + "SELECT r.due_date, " + CATEGORY + ", 0, 0, 0, 1, 0 "
+            + "FROM borrow_records r JOIN books b ON b.id = r.book_id "
+            + "WHERE r.status = 'OVERDUE' OR (r.status = 'RETURNED' AND r.return_date > r.due_date)"
+            + ROLLUP_MERGE, nativeQuery = true)
+    int addHistory();
+
+    @Query("SELECT r FROM BorrowRollup r WHERE r.granularity = :granularity "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart, r.category")
+    List<BorrowRollup> findRange(@Param("granularity") Granularity granularity,
+                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT r FROM BorrowRollup r WHERE r.granularity = :granularity AND r.category = :category "
+            + "AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<BorrowRollup> findRangeForCategory(@Param("granularity") Granularity granularity, @Param("category") String category,
+                                            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
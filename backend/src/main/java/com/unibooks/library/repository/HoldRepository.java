@@ -0,0 +1,65 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.HoldResponse;
+import com.unibooks.library.model.Hold;
+import com.unibooks.library.model.Hold.HoldStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+
+    String HOLD_RESPONSE_SELECT = "SELECT new com.unibooks.library.dto.HoldResponse("
+            + "h.id, u.id, u.name, b.id, b.title, h.priority, h.status, h.createdAt, h.readyAt, h.expiresAt, "
+            + "(SELECT COUNT(a) FROM Hold a WHERE a.book.id = b.id AND a.status = com.unibooks.library.model.Hold.HoldStatus.WAITING "
+            + "AND h.status = com.unibooks.library.model.Hold.HoldStatus.WAITING "
+            + "AND (a.priority > h.priority OR (a.priority = h.priority AND (a.createdAt < h.createdAt "
+            + "OR (a.createdAt = h.createdAt AND a.id <= h.id)))))) "
+            + "FROM Hold h JOIN h.user u JOIN h.book b ";
+
+    // the head of a book's queue, read through idx_holds_queue_head and locked so two returns cannot both claim it
+    @Query(value = "SELECT id, user_id FROM holds WHERE book_id = :bookId AND status = 'WAITING' "
+            + "ORDER BY priority DESC, created_at, id LIMIT 1 FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockNextWaiting(@Param("bookId") Long bookId);
+
+    @Query(value = "SELECT id, book_id FROM holds WHERE status = 'READY' AND expires_at < :now "
+            + "ORDER BY expires_at LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockExpiredReady(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = :ready, h.readyAt = :now, h.expiresAt = :expiresAt "
+            + "WHERE h.id = :id AND h.status = :waiting")
+    int markReady(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt,
+                  @Param("ready") HoldStatus ready, @Param("waiting") HoldStatus waiting);
+
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = :to WHERE h.id IN :ids AND h.status IN :from")
+    int transition(@Param("ids") Collection<Long> ids, @Param("from") Collection<HoldStatus> from, @Param("to") HoldStatus to);
+
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.user.id = :userId AND h.book.id = :bookId AND h.status IN :statuses")
+    boolean existsForUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId,
+                                 @Param("statuses") Collection<HoldStatus> statuses);
+
+    @Query(HOLD_RESPONSE_SELECT + "WHERE h.id = :id")
+    Optional<HoldResponse> findResponseById(@Param("id") Long id);
+
+    @Query(HOLD_RESPONSE_SELECT + "WHERE u.id = :userId AND h.status IN :statuses ORDER BY h.createdAt DESC")
+    List<HoldResponse> findResponsesByUser(@Param("userId") Long userId, @Param("statuses") Collection<HoldStatus> statuses);
+
+    @Query(HOLD_RESPONSE_SELECT + "WHERE b.id = :bookId AND h.status IN :statuses "
+            + "ORDER BY CASE WHEN h.status = com.unibooks.library.model.Hold.HoldStatus.READY THEN 0 ELSE 1 END, "
+            + "h.priority DESC, h.createdAt, h.id")
+    List<HoldResponse> findQueueForBook(@Param("bookId") Long bookId, @Param("statuses") Collection<HoldStatus> statuses);
+
+    @Modifying
+    @Query("DELETE FROM Hold h WHERE h.book.id = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
@@ -0,0 +1,52 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // locked so two refreshes racing with the same token cannot both rotate it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RefreshToken t WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> lockByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.userId = :userId AND t.revoked = false")
+    int revokeUser(@Param("userId") Long userId);
+
+    Optional<RefreshToken> findByAccessTokenId(String accessTokenId);
+
+    // access tokens that are revoked and would otherwise still be accepted
+    @Query("SELECT t.accessTokenId, t.accessExpiresAt FROM RefreshToken t "
+            + "WHERE t.revoked = true AND t.accessExpiresAt > :now")
+    List<Object[]> findRevokedAccessTokens(@Param("now") LocalDateTime now);
+
+    @Query("SELECT t.accessTokenId, t.accessExpiresAt FROM RefreshToken t "
+            + "WHERE t.familyId = :familyId AND t.revoked = true AND t.accessExpiresAt > :now")
+    List<Object[]> findRevokedAccessTokensInFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.accessTokenId, t.accessExpiresAt FROM RefreshToken t "
+            + "WHERE t.userId = :userId AND t.revoked = true AND t.accessExpiresAt > :now")
+    List<Object[]> findRevokedAccessTokensOfUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now AND t.accessExpiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
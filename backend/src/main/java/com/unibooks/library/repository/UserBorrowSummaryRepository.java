@@ -0,0 +1,45 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.UserBorrowSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserBorrowSummaryRepository extends JpaRepository<UserBorrowSummary, Long> {
+
+    String HOLDING_STATUSES = "('PENDING', 'BORROWED', 'OVERDUE')";
+
+    @Modifying
+    @Query("UPDATE UserBorrowSummary s SET s.activeCount = s.activeCount + 1 WHERE s.userId = :userId AND s.activeCount < :max")
+    int reserve(@Param("userId") Long userId, @Param("max") int max);
+
+    @Modifying
+    @Query("UPDATE UserBorrowSummary s SET s.activeCount = CASE WHEN s.activeCount > :count THEN s.activeCount - :count ELSE 0 END "
+            + "WHERE s.userId = :userId")
+    int release(@Param("userId") Long userId, @Param("count") int count);
+
+    // creates the row for a user seen for the first time; inserts nothing when the user does not exist
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_borrow_summary (user_id, active_count) "
+            + "SELECT u.id, (SELECT COUNT(*) FROM borrow_records br WHERE br.user_id = u.id AND br.status IN " + HOLDING_STATUSES + ") "
+            + "FROM users u WHERE u.id = :userId", nativeQuery = true)
+    int seed(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE user_borrow_summary s JOIN ("
+            + "SELECT user_id, COUNT(*) AS held FROM borrow_records "
+            + "WHERE book_id = :bookId AND status IN " + HOLDING_STATUSES + " GROUP BY user_id) h ON h.user_id = s.user_id "
+            + "SET s.active_count = GREATEST(s.active_count - h.held, 0)", nativeQuery = true)
+    int releaseForBook(@Param("bookId") Long bookId);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_borrow_summary (user_id, active_count) "
+            + "SELECT u.id, COUNT(br.id) FROM users u "
+            + "LEFT JOIN borrow_records br ON br.user_id = u.id AND br.status IN " + HOLDING_STATUSES + " "
+            + "GROUP BY u.id "
+            + "ON DUPLICATE KEY UPDATE active_count = VALUES(active_count)", nativeQuery = true)
+    int reconcileAll();
+}
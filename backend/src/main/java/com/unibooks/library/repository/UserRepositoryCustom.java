@@ -0,0 +1,12 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.UserSearchCriteria;
+import com.unibooks.library.dto.UserSummary;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    List<UserSummary> searchPageAfter(UserSearchCriteria criteria, UserSort sort, boolean ascending,
+                                      Comparable<?> lastValue, Long lastId, int limit);
+}
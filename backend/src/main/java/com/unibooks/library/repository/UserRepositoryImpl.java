@@ -0,0 +1,78 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.UserSearchCriteria;
+import com.unibooks.library.dto.UserSummary;
+import com.unibooks.library.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<UserSummary> searchPageAfter(UserSearchCriteria criteria, UserSort sort, boolean ascending,
+                                             Comparable<?> lastValue, Long lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<User> user = query.from(User.class);
+
+        Path sortPath = user.get(sort.getProperty());
+        Path<Long> idPath = user.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getRole() != null) {
+            predicates.add(cb.equal(user.get("role"), criteria.getRole()));
+        }
+        if (criteria.getQ() != null && !criteria.getQ().isBlank()) {
+            // prefix patterns only, so each branch can range-scan its column's index
+            String prefix = escapeLike(criteria.getQ().trim()) + "%";
+            predicates.add(cb.or(
+                    cb.like(user.get("name"), prefix, LIKE_ESCAPE),
+                    cb.like(user.get("email"), prefix, LIKE_ESCAPE),
+                    cb.like(user.get("mobile"), prefix, LIKE_ESCAPE)));
+        }
+        if (lastValue != null && lastId != null) {
+            Comparable value = lastValue;
+            Predicate beyondValue = ascending ? cb.greaterThan(sortPath, value) : cb.lessThan(sortPath, value);
+            Predicate beyondId = ascending ? cb.greaterThan(idPath, lastId) : cb.lessThan(idPath, lastId);
+            predicates.add(cb.or(beyondValue, cb.and(cb.equal(sortPath, value), beyondId)));
+        }
+
+        query.select(cb.construct(UserSummary.class,
+                idPath, user.get("name"), user.get("email"), user.get("gender"), user.get("mobile"), user.get("role")));
+        query.where(predicates.toArray(new Predicate[0]));
+        if (ascending) {
+            query.orderBy(cb.asc(sortPath), cb.asc(idPath));
+        } else {
+            query.orderBy(cb.desc(sortPath), cb.desc(idPath));
+        }
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
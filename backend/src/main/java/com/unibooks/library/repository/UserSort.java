@@ -0,0 +1,46 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.UserSummary;
+
+public enum UserSort {
+    NAME("name"),
+    EMAIL("email"),
+    ID("id");
+
+    private final String property;
+
+    UserSort(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Comparable<?> extract(UserSummary user) {
+        switch (this) {
+            case EMAIL:
+                return user.getEmail();
+            case ID:
+                return user.getId();
+            default:
+                return user.getName();
+        }
+    }
+
+    public Comparable<?> parseValue(String raw) {
+        if (this == ID) {
+            return Long.valueOf(raw);
+        }
+        return raw;
+    }
+
+    public static UserSort fromParam(String param) {
+        for (UserSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(param) || sort.property.equalsIgnoreCase(param)) {
+                return sort;
+            }
+        }
+        throw new RuntimeException("Unsupported sort field: " + param);
+    }
+}
@@ -5,7 +5,6 @@ import com.unibooks.library.dto.RegisterRequest;
 import com.unibooks.library.model.User;
 import com.unibooks.library.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -17,7 +16,13 @@ public class AuthService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private LibraryStats libraryStats;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
 
     public User register(RegisterRequest request) {
 
@@ -34,9 +39,12 @@ public class AuthService {
         user.setEmail(request.getEmail());
         user.setGender(request.getGender());
         user.setMobile(request.getMobile());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHasher.encode(request.getPassword()));
         user.setRole(User.Role.USER);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(savedUser.getId(), savedUser.getEmail());
+        libraryStats.userAdded(savedUser.getRole());
+        return savedUser;
     }
 
     public User login(LoginRequest request) {
@@ -47,9 +55,20 @@ public class AuthService {
         }
         User user = userOptional.get();
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid email or password");
         }
+
+        // the password is in hand only now, so this is when a hash made at an old cost can be redone
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            try {
+                String rehashed = passwordHasher.encode(request.getPassword());
+                userRepository.replacePassword(user.getId(), user.getPassword(), rehashed);
+                user.setPassword(rehashed);
+            } catch (PasswordHasher.OverloadedException e) {
+                // the old hash still works; try again at the next login
+            }
+        }
         return user;
     }
 }
@@ -0,0 +1,152 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.AuthTokens;
+import com.unibooks.library.model.RefreshToken;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.RefreshTokenRepository;
+import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Sessions as a short-lived access token plus a rotating refresh token. Access
+ * tokens are checked without the database; revoking a session stores the
+ * revocation on its refresh token rows and hands the ids of its still-valid
+ * access tokens to {@link TokenRevocations}.
+ */
+@Service
+public class AuthTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthTokenService.class);
+
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private LibraryEventBus libraryEventBus;
+
+    @Value("${library.auth.refresh-token-days:14}")
+    private long refreshTokenDays;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /** Starts a new session for a user who has just signed in. */
+    @Transactional
+    public AuthTokens issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new pair. Returns null when the token is
+     * unknown, expired or revoked. A token that was already exchanged revokes its
+     * whole session, since one of the two parties presenting it is not the user.
+     */
+    @Transactional
+    public AuthTokens rotate(String refreshToken) {
+        Optional<RefreshToken> stored = refreshTokenRepository.lockByTokenHash(hash(refreshToken));
+        if (stored.isEmpty()) {
+            return null;
+        }
+        RefreshToken current = stored.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (current.isRevoked() || current.getExpiresAt().isBefore(now)) {
+            return null;
+        }
+        if (current.getRotatedAt() != null) {
+            log.warn("Refresh token reused for user {}; revoking the session", current.getUserId());
+            refreshTokenRepository.revokeFamily(current.getFamilyId());
+            tokenRevocations.revoke(refreshTokenRepository.findRevokedAccessTokensInFamily(current.getFamilyId(), now));
+            return null;
+        }
+
+        // read the user rather than the principal cache, so a role change made since the
+        // last refresh is in the new access token rather than whatever is still cached
+        Optional<User> user = userRepository.findById(current.getUserId());
+        if (user.isEmpty()) {
+            return null;
+        }
+        current.setRotatedAt(now);
+        return issue(user.get(), current.getFamilyId());
+    }
+
+    /**
+     * Ends the session that the given access token belongs to. Event streams
+     * don't know their session, so all of the user's streams are closed and the
+     * other sessions reconnect.
+     */
+    @Transactional
+    public void revokeSession(String accessTokenId) {
+        refreshTokenRepository.findByAccessTokenId(accessTokenId).ifPresent(session -> {
+            refreshTokenRepository.revokeFamily(session.getFamilyId());
+            tokenRevocations.revoke(refreshTokenRepository.findRevokedAccessTokensInFamily(session.getFamilyId(), LocalDateTime.now()));
+            libraryEventBus.disconnectUser(session.getUserId());
+        });
+    }
+
+    /** Ends every session of a user, e.g. after the account is deleted or its role changes. */
+    @Transactional
+    public void revokeUser(Long userId) {
+        refreshTokenRepository.revokeUser(userId);
+        tokenRevocations.revoke(refreshTokenRepository.findRevokedAccessTokensOfUser(userId, LocalDateTime.now()));
+        libraryEventBus.disconnectUser(userId);
+    }
+
+    private AuthTokens issue(User user, String familyId) {
+        Date issuedAt = new Date();
+        LocalDateTime now = LocalDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault());
+        String accessTokenId = UUID.randomUUID().toString();
+        String accessToken = jwtUtil.generateToken(accessTokenId, user.getEmail(), user.getRole().name(), issuedAt);
+
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken row = new RefreshToken();
+        row.setTokenHash(hash(refreshToken));
+        row.setUserId(user.getId());
+        row.setFamilyId(familyId);
+        row.setAccessTokenId(accessTokenId);
+        row.setAccessExpiresAt(now.plusNanos(jwtUtil.getExpirationMillis() * 1_000_000));
+        row.setCreatedAt(now);
+        row.setExpiresAt(now.plusDays(refreshTokenDays));
+        refreshTokenRepository.save(row);
+        return new AuthTokens(user, accessToken, refreshToken);
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
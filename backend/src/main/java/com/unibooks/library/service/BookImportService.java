@@ -0,0 +1,375 @@
+package com.unibooks.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibooks.library.dto.BookImportError;
+import com.unibooks.library.dto.BookImportReport;
+import com.unibooks.library.dto.BookRequest;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.util.CsvUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Streams CSV or JSON-lines uploads into the books table in batches. Rows are
+ * read one record at a time (a quoted CSV value may span lines), checked against existing ISBNs one chunk at a time
+ * and written with JDBC batch inserts, since IDENTITY ids stop Hibernate from
+ * batching.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_RECENT_IMPORTS = 20;
+    // a stray quote would otherwise pull the rest of the upload into one record
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private static final String INSERT_SQL = "INSERT INTO books "
+            + "(title, author, isbn, category, total_copies, available_copies, cover_image) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private LibraryStats libraryStats;
+
+    private final Deque<BookImportReport> recentImports = new ArrayDeque<>();
+
+    private static final class PendingRow {
+        private final long line;
+        private final BookRequest request;
+
+        PendingRow(long line, BookRequest request) {
+            this.line = line;
+            this.request = request;
+        }
+    }
+
+    public BookImportReport importBooks(InputStream body, String format) {
+        String normalizedFormat = format == null ? "csv" : format.toLowerCase(Locale.ROOT);
+        if (!normalizedFormat.equals("csv") && !normalizedFormat.equals("ndjson")) {
+            throw new RuntimeException("Unsupported import format: " + format);
+        }
+
+        BookImportReport report = new BookImportReport();
+        report.setId(UUID.randomUUID().toString());
+        report.setStatus("RUNNING");
+        report.setFormat(normalizedFormat);
+        report.setStartedAt(LocalDateTime.now());
+        register(report);
+
+        // repeats within a chunk are caught here; a repeat of an earlier chunk is already in the
+        // table by then and is caught by the existing-ISBN check, so memory stays one chunk deep
+        Set<String> chunkIsbns = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<String> header = null;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                // errors name the line the record starts on
+                long recordLine = lineNumber;
+                boolean quoteOpen = normalizedFormat.equals("csv") && CsvUtils.endsInsideQuotes(line);
+                if (quoteOpen) {
+                    StringBuilder record = new StringBuilder(line);
+                    String next;
+                    while (quoteOpen && record.length() < MAX_RECORD_CHARS && (next = reader.readLine()) != null) {
+                        lineNumber++;
+                        record.append('\n').append(next);
+                        quoteOpen ^= CsvUtils.endsInsideQuotes(next);
+                    }
+                    line = record.toString();
+                }
+                if (normalizedFormat.equals("csv") && header == null) {
+                    header = parseHeader(line);
+                    continue;
+                }
+
+                synchronized (report) {
+                    report.setRowsRead(report.getRowsRead() + 1);
+                }
+                BookRequest request;
+                try {
+                    request = normalizedFormat.equals("csv") ? parseCsvRow(header, line) : parseJsonRow(line);
+                    validate(request);
+                } catch (Exception e) {
+                    recordError(report, recordLine, null, e.getMessage(), false);
+                    continue;
+                }
+
+                if (!chunkIsbns.add(request.getIsbn())) {
+                    recordError(report, recordLine, request.getIsbn(), "Duplicate ISBN in upload", true);
+                    continue;
+                }
+
+                chunk.add(new PendingRow(recordLine, request));
+                if (chunk.size() == CHUNK_SIZE) {
+                    flush(chunk, report);
+                    chunk.clear();
+                    chunkIsbns.clear();
+                }
+            }
+            flush(chunk, report);
+            finish(report, "COMPLETED");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Book import {} aborted", report.getId(), e);
+            recordError(report, null, null, "Import aborted: " + e.getMessage(), false);
+            finish(report, "FAILED");
+        }
+        return snapshot(report);
+    }
+
+    public List<BookImportReport> getRecentImports() {
+        List<BookImportReport> reports = new ArrayList<>();
+        synchronized (recentImports) {
+            for (BookImportReport report : recentImports) {
+                reports.add(snapshot(report));
+            }
+        }
+        return reports;
+    }
+
+    private void flush(List<PendingRow> chunk, BookImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<String> isbns = new ArrayList<>();
+        for (PendingRow row : chunk) {
+            isbns.add(row.request.getIsbn());
+        }
+        Set<String> existing = new HashSet<>(bookRepository.findExistingIsbns(isbns));
+
+        List<PendingRow> toInsert = new ArrayList<>();
+        for (PendingRow row : chunk) {
+            if (existing.contains(row.request.getIsbn())) {
+                recordError(report, row.line, row.request.getIsbn(), "Book with ISBN already exists", true);
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        List<String> insertedIsbns = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, toArgs(toInsert)));
+            for (PendingRow row : toInsert) {
+                insertedIsbns.add(row.request.getIsbn());
+            }
+        } catch (DataAccessException e) {
+            // a concurrent insert or a bad value failed the whole batch; retry row by row to isolate it
+            for (PendingRow row : toInsert) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, toArgs(List.of(row)).get(0));
+                    insertedIsbns.add(row.request.getIsbn());
+                } catch (DataAccessException rowError) {
+                    recordError(report, row.line, row.request.getIsbn(), rootMessage(rowError), false);
+                }
+            }
+        }
+
+        synchronized (report) {
+            report.setInserted(report.getInserted() + insertedIsbns.size());
+        }
+        libraryStats.booksAdded(insertedIsbns.size());
+        if (!insertedIsbns.isEmpty()) {
+            catalogCache.invalidateBook(null);
+            for (Book book : bookRepository.findByIsbnIn(insertedIsbns)) {
+                bookSearchIndex.index(book);
+                bookSuggestionIndex.index(book);
+            }
+        }
+    }
+
+    private static List<Object[]> toArgs(List<PendingRow> rows) {
+        List<Object[]> args = new ArrayList<>();
+        for (PendingRow row : rows) {
+            BookRequest request = row.request;
+            args.add(new Object[] {
+                    request.getTitle(),
+                    request.getAuthor(),
+                    request.getIsbn(),
+                    request.getCategory(),
+                    request.getTotalCopies(),
+                    request.getAvailableCopies(),
+                    request.getCoverImage()
+            });
+        }
+        return args;
+    }
+
+    private static List<String> parseHeader(String line) {
+        List<String> header = new ArrayList<>();
+        for (String column : CsvUtils.parseLine(line)) {
+            header.add(column.trim().toLowerCase(Locale.ROOT));
+        }
+        if (!header.contains("title") || !header.contains("isbn")) {
+            throw new RuntimeException("CSV header must name the columns, e.g. title,author,isbn,category,totalCopies");
+        }
+        return header;
+    }
+
+    private static BookRequest parseCsvRow(List<String> header, String line) {
+        List<String> values = CsvUtils.parseLine(line);
+        if (values.size() != header.size()) {
+            throw new RuntimeException("Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i).trim();
+            row.put(header.get(i), value.isEmpty() ? null : value);
+        }
+
+        BookRequest request = new BookRequest();
+        request.setTitle(row.get("title"));
+        request.setAuthor(row.get("author"));
+        request.setIsbn(row.get("isbn"));
+        request.setCategory(row.get("category"));
+        request.setTotalCopies(parseInteger(row.get("totalcopies"), "totalCopies"));
+        request.setAvailableCopies(parseInteger(row.get("availablecopies"), "availableCopies"));
+        request.setCoverImage(row.get("coverimage"));
+        return request;
+    }
+
+    private BookRequest parseJsonRow(String line) throws IOException {
+        return objectMapper.readValue(line, BookRequest.class);
+    }
+
+    private static Integer parseInteger(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(column + " must be a whole number");
+        }
+    }
+
+    private static void validate(BookRequest request) {
+        if (isBlank(request.getTitle()) || isBlank(request.getAuthor())
+                || isBlank(request.getIsbn()) || isBlank(request.getCategory())) {
+            throw new RuntimeException("title, author, isbn and category are required");
+        }
+        if (request.getTotalCopies() == null || request.getTotalCopies() < 0) {
+            throw new RuntimeException("totalCopies must be zero or more");
+        }
+        if (request.getAvailableCopies() == null) {
+            request.setAvailableCopies(request.getTotalCopies());
+        } else if (request.getAvailableCopies() < 0 || request.getAvailableCopies() > request.getTotalCopies()) {
+            throw new RuntimeException("availableCopies must be between 0 and totalCopies");
+        }
+        request.setIsbn(request.getIsbn().trim());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static void recordError(BookImportReport report, Long line, String isbn, String message, boolean duplicate) {
+        synchronized (report) {
+            if (duplicate) {
+                report.setDuplicates(report.getDuplicates() + 1);
+            } else if (line != null) {
+                report.setFailed(report.getFailed() + 1);
+            }
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add(new BookImportError(line, isbn, message));
+            } else {
+                report.setErrorsTruncated(true);
+            }
+        }
+    }
+
+    private static void finish(BookImportReport report, String status) {
+        synchronized (report) {
+            report.setStatus(status);
+            report.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    private void register(BookImportReport report) {
+        synchronized (recentImports) {
+            recentImports.addFirst(report);
+            while (recentImports.size() > MAX_RECENT_IMPORTS) {
+                recentImports.removeLast();
+            }
+        }
+    }
+
+    private static BookImportReport snapshot(BookImportReport report) {
+        synchronized (report) {
+            BookImportReport copy = new BookImportReport();
+            copy.setId(report.getId());
+            copy.setStatus(report.getStatus());
+            copy.setFormat(report.getFormat());
+            copy.setRowsRead(report.getRowsRead());
+            copy.setInserted(report.getInserted());
+            copy.setDuplicates(report.getDuplicates());
+            copy.setFailed(report.getFailed());
+            copy.setErrors(new ArrayList<>(report.getErrors()));
+            copy.setErrorsTruncated(report.isErrorsTruncated());
+            copy.setStartedAt(report.getStartedAt());
+            copy.setFinishedAt(report.getFinishedAt());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.repository.BorrowEventRepository;
+import com.unibooks.library.util.CoBorrowMatrix;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "Readers also borrowed" over a {@link CoBorrowMatrix}. The matrix is built
+ * once from borrow history on a background thread, then kept current from the
+ * borrow event outbox; a periodic rebuild drops deleted books and re-prunes.
+ * Events are matched to the history by borrow record, never by event id.
+ */
+@Component
+public class BookRecommender {
+
+    private static final Logger log = LoggerFactory.getLogger(BookRecommender.class);
+
+    public static final int DEFAULT_RECOMMENDATIONS = 10;
+    public static final int MAX_RECOMMENDATIONS = 50;
+
+    // per-user chronological order so each borrow pairs with that reader's preceding books
+    private static final String HISTORY_SQL = "SELECT user_id, book_id FROM borrow_records "
+            + "WHERE status IN ('BORROWED', 'OVERDUE', 'RETURNED') ORDER BY user_id, borrow_date, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BorrowEventRepository borrowEventRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final MeterRegistry meterRegistry;
+
+    private volatile CoBorrowMatrix matrix = new CoBorrowMatrix();
+
+    private final Object updateLock = new Object();
+    private boolean rebuilding;
+    private final List<BorrowEventMessage> arrivedDuringRebuild = new ArrayList<>();
+    // records the current matrix was built with whose borrow event had not been delivered yet
+    private Set<Long> alreadyCounted = new HashSet<>();
+
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-recommender-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BookRecommender(JdbcTemplate jdbcTemplate, BorrowEventRepository borrowEventRepository,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.borrowEventRepository = borrowEventRepository;
+        this.meterRegistry = meterRegistry;
+        // both reads of a rebuild must see the same committed state
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("catalog.recommendations.books", this, recommender -> recommender.matrix.getBookCount())
+                .register(meterRegistry);
+        Gauge.builder("catalog.recommendations.pairs", this, recommender -> recommender.matrix.getPairCount())
+                .register(meterRegistry);
+        Gauge.builder("catalog.recommendations.memory", this, recommender -> recommender.matrix.estimatedBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public List<Long> similar(Long bookId, int limit) {
+        return matrix.similar(bookId, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.recommendations.rebuild-interval-ms:86400000}",
+            fixedDelayString = "${library.recommendations.rebuild-interval-ms:86400000}")
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    @EventListener
+    public void onBorrowEvents(InProcessBorrowEventSink.BorrowEventsPublished published) {
+        synchronized (updateLock) {
+            for (BorrowEventMessage event : published.getEvents()) {
+                if (!isNewBorrow(event)) {
+                    continue;
+                }
+                if (rebuilding) {
+                    arrivedDuringRebuild.add(event);
+                } else if (!alreadyCounted.remove(event.getBorrowRecordId())) {
+                    matrix.recordBorrow(event.getUserId(), event.getBookId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Event ids are not a watermark: ids are assigned at insert but rows become
+     * visible at commit, so a lower id can commit, and be delivered, after a
+     * higher one. Instead the history and the still-undelivered borrow events
+     * are read in one snapshot. A borrow is in the history exactly when its
+     * event is visible there, so of the events delivered afterwards only those
+     * visible but undelivered in the snapshot are already counted.
+     */
+    void rebuild() {
+        rebuildQueued.set(false);
+        long start = System.currentTimeMillis();
+        synchronized (updateLock) {
+            rebuilding = true;
+        }
+        try {
+            CoBorrowMatrix rebuilt = new CoBorrowMatrix();
+            Set<Long> counted = snapshotTransaction.execute(status -> {
+                // read first: the streaming scan below holds the connection until it finishes
+                Set<Long> undelivered = new HashSet<>(borrowEventRepository.findUndeliveredBorrowRecordIds(
+                        BorrowStatus.BORROWED, BorrowStatus.OVERDUE));
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(HISTORY_SQL,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    // Integer.MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result set
+                    statement.setFetchSize(Integer.MIN_VALUE);
+                    return statement;
+                }, (RowCallbackHandler) row -> rebuilt.recordBorrow(row.getLong(1), row.getLong(2)));
+                return undelivered;
+            });
+
+            synchronized (updateLock) {
+                for (BorrowEventMessage event : arrivedDuringRebuild) {
+                    if (!counted.remove(event.getBorrowRecordId())) {
+                        rebuilt.recordBorrow(event.getUserId(), event.getBookId());
+                    }
+                }
+                matrix = rebuilt;
+                alreadyCounted = counted;
+            }
+            log.info("Built co-borrow recommendations over {} books and {} pairs in {} ms",
+                    rebuilt.getBookCount(), rebuilt.getPairCount(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Rebuilding co-borrow recommendations failed", e);
+        } finally {
+            synchronized (updateLock) {
+                rebuilding = false;
+                arrivedDuringRebuild.clear();
+            }
+        }
+    }
+
+    // renewals move OVERDUE back to BORROWED and are not new borrows
+    private static boolean isNewBorrow(BorrowEventMessage event) {
+        return event.getToStatus() == BorrowStatus.BORROWED && event.getFromStatus() != BorrowStatus.OVERDUE;
+    }
+}
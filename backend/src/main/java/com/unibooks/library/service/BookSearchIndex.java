@@ -0,0 +1,443 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.Book;
+import com.unibooks.library.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the searchable book fields. Kept in sync by
+ * {@link BookService} so catalog searches never fall back to LIKE scans.
+ * Changes made inside a transaction are applied once it commits, so a deleted
+ * book stays searchable if the delete rolls back.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    public enum Field {
+        TITLE(3.0f),
+        AUTHOR(2.0f),
+        CATEGORY(1.0f),
+        ISBN(4.0f);
+
+        private final float weight;
+
+        Field(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.4f;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Field, TreeMap<String, Postings>> fields = new EnumMap<>(Field.class);
+    private final Map<Long, String[][]> documents = new HashMap<>();
+
+    public BookSearchIndex() {
+        for (Field field : Field.values()) {
+            fields.put(field, new TreeMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            for (TreeMap<String, Postings> terms : fields.values()) {
+                terms.clear();
+            }
+
+            bookRepository.forEachBatch(BUILD_BATCH_SIZE, batch -> {
+                for (Book book : batch) {
+                    addDocument(book.getId(), fieldValues(book));
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} books for search in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    public void index(Book book) {
+        // read now: the entity may be changed or detached by the time the transaction commits
+        Long bookId = book.getId();
+        String[] values = fieldValues(book);
+        afterCommit(() -> applyIndex(bookId, values));
+    }
+
+    public void remove(Long bookId) {
+        afterCommit(() -> applyRemove(bookId));
+    }
+
+    private void applyIndex(Long bookId, String[] values) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+            addDocument(bookId, values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyRemove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /**
+     * Returns the ids of the best matching books, ranked by how many query terms
+     * matched and then by a tf-idf style score. A {@code null} field searches all fields.
+     */
+    public List<Long> search(String query, Field field, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (queryTokens.size() > MAX_QUERY_TOKENS) {
+            queryTokens = queryTokens.subList(0, MAX_QUERY_TOKENS);
+        }
+
+        List<Field> targets = field == null ? Arrays.asList(Field.values()) : List.of(field);
+        Map<Long, float[]> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int totalDocs = Math.max(documents.size(), 1);
+            for (int i = 0; i < queryTokens.size(); i++) {
+                String token = queryTokens.get(i);
+                boolean matched = false;
+                for (Field target : targets) {
+                    NavigableMap<String, Postings> terms = fields.get(target);
+                    matched |= scoreExactAndPrefix(terms, target, token, i, totalDocs, scores);
+                }
+                if (!matched && token.length() >= MIN_FUZZY_LENGTH) {
+                    for (Field target : targets) {
+                        scoreFuzzy(fields.get(target), target, token, i, totalDocs, scores);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, float[]>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int coverage = Integer.compare(coverage(b.getValue()), coverage(a.getValue()));
+            if (coverage != 0) {
+                return coverage;
+            }
+            int score = Float.compare(total(b.getValue()), total(a.getValue()));
+            if (score != 0) {
+                return score;
+            }
+            return Long.compare(a.getKey(), b.getKey());
+        });
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private boolean scoreExactAndPrefix(NavigableMap<String, Postings> terms, Field field, String token,
+                                        int tokenIndex, int totalDocs, Map<Long, float[]> scores) {
+        boolean matched = false;
+        Postings exact = terms.get(token);
+        if (exact != null) {
+            accumulate(exact, field.weight * idf(exact, totalDocs), tokenIndex, scores);
+            matched = true;
+        }
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (Map.Entry<String, Postings> entry : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                Postings postings = entry.getValue();
+                accumulate(postings, field.weight * PREFIX_FACTOR * idf(postings, totalDocs), tokenIndex, scores);
+                matched = true;
+            }
+        }
+        return matched;
+    }
+
+    private void scoreFuzzy(NavigableMap<String, Postings> terms, Field field, String token,
+                            int tokenIndex, int totalDocs, Map<Long, float[]> scores) {
+        int maxEdits = token.length() >= 8 ? 2 : 1;
+        // typos rarely hit the first character, so only terms sharing it are compared
+        String first = token.substring(0, 1);
+        for (Map.Entry<String, Postings> entry : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+            String term = entry.getKey();
+            if (Math.abs(term.length() - token.length()) > maxEdits) {
+                continue;
+            }
+            int distance = editDistance(token, term, maxEdits);
+            if (distance > 0 && distance <= maxEdits) {
+                Postings postings = entry.getValue();
+                float factor = FUZZY_FACTOR / distance;
+                accumulate(postings, field.weight * factor * idf(postings, totalDocs), tokenIndex, scores);
+            }
+        }
+    }
+
+    private void accumulate(Postings postings, float weight, int tokenIndex, Map<Long, float[]> scores) {
+        for (int i = 0; i < postings.size; i++) {
+            float[] docScores = scores.get(postings.ids[i]);
+            if (docScores == null) {
+                docScores = new float[MAX_QUERY_TOKENS];
+                scores.put(postings.ids[i], docScores);
+            }
+            float contribution = weight * postings.weights[i];
+            if (contribution > docScores[tokenIndex]) {
+                docScores[tokenIndex] = contribution;
+            }
+        }
+    }
+
+    private static float idf(Postings postings, int totalDocs) {
+        return (float) Math.log(1.0 + (double) totalDocs / postings.size);
+    }
+
+    private static int coverage(float[] docScores) {
+        int count = 0;
+        for (float score : docScores) {
+            if (score > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static float total(float[] docScores) {
+        float sum = 0;
+        for (float score : docScores) {
+            sum += score;
+        }
+        return sum;
+    }
+
+    private void addDocument(Long bookId, String[] values) {
+        String[][] docTerms = new String[Field.values().length][];
+        for (Field field : Field.values()) {
+            List<String> tokens = tokenize(field, values[field.ordinal()]);
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            TreeMap<String, Postings> terms = fields.get(field);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                // shorter fields weigh each matching term more heavily
+                float weight = (float) (entry.getValue() / Math.sqrt(tokens.size()));
+                terms.computeIfAbsent(entry.getKey(), key -> new Postings()).put(bookId, weight);
+            }
+            docTerms[field.ordinal()] = frequencies.keySet().toArray(new String[0]);
+        }
+        documents.put(bookId, docTerms);
+    }
+
+    private void removeDocument(Long bookId) {
+        String[][] docTerms = documents.remove(bookId);
+        if (docTerms == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            TreeMap<String, Postings> terms = fields.get(field);
+            for (String term : docTerms[field.ordinal()]) {
+                Postings postings = terms.get(term);
+                if (postings != null && postings.remove(bookId) && postings.size == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    private static String[] fieldValues(Book book) {
+        String[] values = new String[Field.values().length];
+        for (Field field : Field.values()) {
+            values[field.ordinal()] = fieldValue(book, field);
+        }
+        return values;
+    }
+
+    private static String fieldValue(Book book, Field field) {
+        switch (field) {
+            case TITLE:
+                return book.getTitle();
+            case AUTHOR:
+                return book.getAuthor();
+            case CATEGORY:
+                return book.getCategory();
+            default:
+                return book.getIsbn();
+        }
+    }
+
+    private static List<String> tokenize(Field field, String value) {
+        if (field == Field.ISBN) {
+            List<String> tokens = new ArrayList<>();
+            String normalized = normalizeIsbn(value);
+            if (!normalized.isEmpty()) {
+                tokens.add(normalized);
+            }
+            return tokens;
+        }
+        return tokenize(value);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : normalized.split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        return isbn.replaceAll("[^0-9Xx]", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Optimal string alignment distance that gives up once every alignment
+     * exceeds {@code maxEdits}.
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Sorted parallel arrays of book ids and term weights for one term.
+     */
+    static final class Postings {
+        private long[] ids = new long[2];
+        private float[] weights = new float[2];
+        private int size;
+
+        void put(long id, float weight) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.unibooks.library.service;
 
+import com.unibooks.library.config.CacheConfig;
+import com.unibooks.library.dto.BookPageResponse;
 import com.unibooks.library.dto.BookRequest;
 import com.unibooks.library.dto.BookResponse;
+import com.unibooks.library.dto.SuggestionResponse;
 import com.unibooks.library.model.Book;
 import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BookSort;
+import com.unibooks.library.repository.HoldRepository;
+import com.unibooks.library.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -17,6 +27,36 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
     
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+    
+    @Autowired
+    private CatalogCache catalogCache;
+    
+    @Autowired
+    private BorrowLimiter borrowLimiter;
+    
+    @Autowired
+    private HoldRepository holdRepository;
+    
+    @Autowired
+    private LibraryEventBus libraryEventBus;
+    
+    @Autowired
+    private LibraryStats libraryStats;
+    
+    @Autowired
+    private BookRecommender bookRecommender;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int LEGACY_LIST_LIMIT = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    
     public BookResponse addBook(BookRequest request) {
         Optional<Book> existingBook = bookRepository.findByIsbn(request.getIsbn());
         if (existingBook.isPresent()) {
@@ -38,6 +78,11 @@ public class BookService {
         
         book.setCoverImage(request.getCoverImage());
         Book savedBook = bookRepository.save(book);
+        catalogCache.invalidateBook(savedBook.getId());
+        libraryStats.booksAdded(1);
+        libraryEventBus.availabilityChanged(savedBook.getId());
+        bookSearchIndex.index(savedBook);
+        bookSuggestionIndex.index(savedBook);
         return BookResponse.fromBook(savedBook);
     }
     
@@ -65,9 +110,14 @@ public class BookService {
         book.setCoverImage(request.getCoverImage());
         
         Book updatedBook = bookRepository.save(book);
+        catalogCache.invalidateBook(id);
+        libraryEventBus.availabilityChanged(id);
+        bookSearchIndex.index(updatedBook);
+        bookSuggestionIndex.index(updatedBook);
         return BookResponse.fromBook(updatedBook);
     }
     
+    @Transactional
     public void deleteBook(Long id) {
         Optional<Book> optionalBook = bookRepository.findById(id);
         if (!optionalBook.isPresent()) {
@@ -75,9 +125,18 @@ public class BookService {
         }
         
         Book book = optionalBook.get();
+        // the book's borrow records are deleted with it, so give back the slots they held
+        borrowLimiter.releaseForBook(id);
+        libraryStats.bookRemoved(id);
+        holdRepository.deleteByBookId(id);
         bookRepository.delete(book);
+        catalogCache.invalidateBook(id);
+        libraryEventBus.availabilityChanged(id);
+        bookSearchIndex.remove(id);
+        bookSuggestionIndex.remove(id);
     }
     
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id", sync = true)
     public BookResponse getBookById(Long id) {
         Optional<Book> optionalBook = bookRepository.findById(id);
         if (!optionalBook.isPresent()) {
@@ -88,42 +147,115 @@ public class BookService {
         return BookResponse.fromBook(book);
     }
     
-    public List<BookResponse> getAllBooks() {
-        List<Book> books = bookRepository.findAll();
-        List<BookResponse> responseList = new ArrayList<>();
+    @Cacheable(cacheNames = CacheConfig.BOOK_LISTS, key = "@catalogCache.listGeneration() + ':all'", sync = true)
+    public BookPageResponse getAllBooks() {
+        return page(BookSort.TITLE, true, null, null, LEGACY_LIST_LIMIT);
+    }
+    
+    @Cacheable(cacheNames = CacheConfig.BOOK_LISTS,
+            key = "@catalogCache.listGeneration() + ':page:' + #sortParam + ':' + #direction + ':' + #cursor + ':' + #size",
+            sync = true)
+    public BookPageResponse getBooksPage(String sortParam, String direction, String cursor, Integer size) {
+        BookSort sort = BookSort.fromParam(sortParam);
+        boolean ascending = !"desc".equalsIgnoreCase(direction);
         
-        for (Book book : books) {
-            BookResponse response = BookResponse.fromBook(book);
-            responseList.add(response);
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (size != null) {
+            if (size <= 0) {
+                throw new RuntimeException("Page size must be positive");
+            }
+            pageSize = Math.min(size, MAX_PAGE_SIZE);
         }
         
-        return responseList;
+        Comparable<?> lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = CursorCodec.decode(cursor, 4);
+            if (!parts[0].equals(sort.name()) || !parts[1].equals(ascending ? "asc" : "desc")) {
+                throw new RuntimeException("Cursor does not match the requested sort order");
+            }
+            try {
+                lastId = Long.valueOf(parts[2]);
+                lastValue = sort.parseValue(parts[3]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+        
+        return page(sort, ascending, lastValue, lastId, pageSize);
     }
     
-    public List<BookResponse> searchBooksByTitle(String title) {
-        List<Book> books = bookRepository.findByTitleContainingIgnoreCase(title);
-        List<BookResponse> responseList = new ArrayList<>();
+    private BookPageResponse page(BookSort sort, boolean ascending, Comparable<?> lastValue, Long lastId, int pageSize) {
+        List<Book> books = bookRepository.findPageAfter(sort, ascending, lastValue, lastId, pageSize + 1);
+        boolean hasMore = books.size() > pageSize;
+        if (hasMore) {
+            books = books.subList(0, pageSize);
+        }
         
+        List<BookResponse> responseList = new ArrayList<>();
         for (Book book : books) {
-            BookResponse response = BookResponse.fromBook(book);
-            responseList.add(response);
+            responseList.add(BookResponse.fromBook(book));
         }
         
-        return responseList;
+        String nextCursor = null;
+        if (hasMore) {
+            Book last = books.get(books.size() - 1);
+            nextCursor = CursorCodec.encode(sort.name(), ascending ? "asc" : "desc",
+                    String.valueOf(last.getId()), String.valueOf(sort.extract(last)));
+        }
+        
+        return new BookPageResponse(responseList, nextCursor, hasMore);
+    }
+    
+    public List<BookResponse> searchBooks(String query, Integer limit) {
+        int maxResults = DEFAULT_SEARCH_LIMIT;
+        if (limit != null && limit > 0) {
+            maxResults = Math.min(limit, MAX_SEARCH_LIMIT);
+        }
+        return loadInOrder(bookSearchIndex.search(query, maxResults));
+    }
+    
+    public List<BookResponse> searchBooksByTitle(String title) {
+        return loadInOrder(bookSearchIndex.search(title, BookSearchIndex.Field.TITLE, MAX_SEARCH_LIMIT));
     }
     
     public List<BookResponse> searchBooksByAuthor(String author) {
-        List<Book> books = bookRepository.findByAuthorContainingIgnoreCase(author);
-        List<BookResponse> responseList = new ArrayList<>();
-        
-        for (Book book : books) {
-            BookResponse response = BookResponse.fromBook(book);
-            responseList.add(response);
+        return loadInOrder(bookSearchIndex.search(author, BookSearchIndex.Field.AUTHOR, MAX_SEARCH_LIMIT));
+    }
+    
+    public List<SuggestionResponse> suggest(String prefix, Integer limit) {
+        int maxResults = BookSuggestionIndex.MAX_SUGGESTIONS;
+        if (limit != null) {
+            maxResults = limit;
+        }
+        return bookSuggestionIndex.suggest(prefix, maxResults);
+    }
+    
+    public List<BookResponse> getSimilarBooks(Long id, Integer limit) {
+        int maxResults = BookRecommender.DEFAULT_RECOMMENDATIONS;
+        if (limit != null && limit > 0) {
+            maxResults = Math.min(limit, BookRecommender.MAX_RECOMMENDATIONS);
+        }
+        return loadInOrder(bookRecommender.similar(id, maxResults));
+    }
+    
+    private List<BookResponse> loadInOrder(List<Long> ids) {
+        Map<Long, Book> booksById = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            booksById.put(book.getId(), book);
         }
         
+        List<BookResponse> responseList = new ArrayList<>();
+        for (Long id : ids) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                responseList.add(BookResponse.fromBook(book));
+            }
+        }
         return responseList;
     }
     
+    @Cacheable(cacheNames = CacheConfig.BOOK_LISTS, key = "@catalogCache.listGeneration() + ':category:' + #category", sync = true)
     public List<BookResponse> getBooksByCategory(String category) {
         List<Book> books = bookRepository.findByCategory(category);
         List<BookResponse> responseList = new ArrayList<>();
@@ -0,0 +1,268 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.SuggestionResponse;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.util.SuggestionTrie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typeahead over book titles and authors. Titles and author names shared by
+ * several books are merged into one suggestion whose score is their combined
+ * borrow count. Changes made inside a transaction are applied once it commits,
+ * so rolled-back borrows and edits never reach the index and callers don't
+ * hold the index lock while holding row locks.
+ */
+@Component
+public class BookSuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SuggestionTrie titles = new SuggestionTrie(MAX_SUGGESTIONS);
+    private final SuggestionTrie authors = new SuggestionTrie(MAX_SUGGESTIONS);
+
+    private final Map<Long, IndexedBook> books = new HashMap<>();
+    private final Map<String, Aggregate> titleAggregates = new HashMap<>();
+    private final Map<String, Aggregate> authorAggregates = new HashMap<>();
+
+    private static final class IndexedBook {
+        private String titleKey;
+        private String authorKey;
+        private long popularity;
+    }
+
+    private static final class Aggregate {
+        private final String display;
+        private long score;
+        private int books;
+
+        Aggregate(String display) {
+            this.display = display;
+        }
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        registerGauges("title", titles);
+        registerGauges("author", authors);
+    }
+
+    private void registerGauges(String index, SuggestionTrie trie) {
+        Gauge.builder("catalog.suggest.entries", trie, SuggestionTrie::getEntryCount)
+                .tag("index", index)
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.nodes", trie, SuggestionTrie::getNodeCount)
+                .tag("index", index)
+                .register(meterRegistry);
+        Gauge.builder("catalog.suggest.memory", trie, SuggestionTrie::estimatedBytes)
+                .tag("index", index)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> popularity = new HashMap<>();
+        for (Object[] row : borrowRecordRepository.countBorrowsPerBook()) {
+            popularity.put((Long) row[0], (Long) row[1]);
+        }
+
+        books.clear();
+        titleAggregates.clear();
+        authorAggregates.clear();
+        bookRepository.forEachBatch(BUILD_BATCH_SIZE, batch -> {
+            for (Book book : batch) {
+                IndexedBook indexed = new IndexedBook();
+                indexed.popularity = popularity.getOrDefault(book.getId(), 0L);
+                indexed.titleKey = contribute(titleAggregates, book.getTitle(), indexed.popularity);
+                indexed.authorKey = contribute(authorAggregates, book.getAuthor(), indexed.popularity);
+                books.put(book.getId(), indexed);
+            }
+        });
+
+        titles.rebuild(toEntries(titleAggregates));
+        authors.rebuild(toEntries(authorAggregates));
+        log.info("Built typeahead over {} titles and {} authors in {} ms",
+                titleAggregates.size(), authorAggregates.size(), System.currentTimeMillis() - start);
+    }
+
+    public void index(Book book) {
+        Long bookId = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        afterCommit(() -> applyIndex(bookId, title, author));
+    }
+
+    public void remove(Long bookId) {
+        afterCommit(() -> applyRemove(bookId));
+    }
+
+    public void recordBorrow(Long bookId) {
+        afterCommit(() -> applyBorrow(bookId));
+    }
+
+    private synchronized void applyIndex(Long bookId, String title, String author) {
+        IndexedBook indexed = books.get(bookId);
+        if (indexed == null) {
+            indexed = new IndexedBook();
+            books.put(bookId, indexed);
+        } else {
+            withdraw(titles, titleAggregates, indexed.titleKey, indexed.popularity);
+            withdraw(authors, authorAggregates, indexed.authorKey, indexed.popularity);
+        }
+        indexed.titleKey = contribute(titleAggregates, title, indexed.popularity);
+        indexed.authorKey = contribute(authorAggregates, author, indexed.popularity);
+        publish(titles, titleAggregates, indexed.titleKey);
+        publish(authors, authorAggregates, indexed.authorKey);
+    }
+
+    private synchronized void applyRemove(Long bookId) {
+        IndexedBook indexed = books.remove(bookId);
+        if (indexed != null) {
+            withdraw(titles, titleAggregates, indexed.titleKey, indexed.popularity);
+            withdraw(authors, authorAggregates, indexed.authorKey, indexed.popularity);
+        }
+    }
+
+    private synchronized void applyBorrow(Long bookId) {
+        IndexedBook indexed = books.get(bookId);
+        if (indexed == null) {
+            return;
+        }
+        indexed.popularity++;
+        bump(titles, titleAggregates, indexed.titleKey);
+        bump(authors, authorAggregates, indexed.authorKey);
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int maxResults = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<SuggestionTrie.Entry> titleMatches = titles.suggest(key, maxResults);
+        List<SuggestionTrie.Entry> authorMatches = authors.suggest(key, maxResults);
+
+        List<SuggestionResponse> suggestions = new ArrayList<>();
+        int t = 0;
+        int a = 0;
+        while (suggestions.size() < maxResults && (t < titleMatches.size() || a < authorMatches.size())) {
+            boolean takeTitle = a >= authorMatches.size()
+                    || (t < titleMatches.size() && SuggestionTrie.RANKING.compare(titleMatches.get(t), authorMatches.get(a)) <= 0);
+            if (takeTitle) {
+                SuggestionTrie.Entry entry = titleMatches.get(t++);
+                suggestions.add(new SuggestionResponse(entry.getDisplay(), "TITLE", entry.getScore()));
+            } else {
+                SuggestionTrie.Entry entry = authorMatches.get(a++);
+                suggestions.add(new SuggestionResponse(entry.getDisplay(), "AUTHOR", entry.getScore()));
+            }
+        }
+        return suggestions;
+    }
+
+    private static String contribute(Map<String, Aggregate> aggregates, String display, long popularity) {
+        String key = normalize(display);
+        if (key.isEmpty()) {
+            return key;
+        }
+        Aggregate aggregate = aggregates.computeIfAbsent(key, k -> new Aggregate(display.trim()));
+        aggregate.score += popularity;
+        aggregate.books++;
+        return key;
+    }
+
+    private static void withdraw(SuggestionTrie trie, Map<String, Aggregate> aggregates, String key, long popularity) {
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            return;
+        }
+        aggregate.score -= popularity;
+        aggregate.books--;
+        if (aggregate.books <= 0) {
+            aggregates.remove(key);
+            trie.remove(key);
+        } else {
+            trie.put(key, aggregate.display, aggregate.score);
+        }
+    }
+
+    private static void publish(SuggestionTrie trie, Map<String, Aggregate> aggregates, String key) {
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate != null) {
+            trie.put(key, aggregate.display, aggregate.score);
+        }
+    }
+
+    private static void bump(SuggestionTrie trie, Map<String, Aggregate> aggregates, String key) {
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate != null) {
+            aggregate.score++;
+            trie.put(key, aggregate.display, aggregate.score);
+        }
+    }
+
+    private static Map<String, SuggestionTrie.Entry> toEntries(Map<String, Aggregate> aggregates) {
+        Map<String, SuggestionTrie.Entry> entries = new HashMap<>();
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            entries.put(entry.getKey(), SuggestionTrie.entry(entry.getKey(), aggregate.display, aggregate.score));
+        }
+        return entries;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
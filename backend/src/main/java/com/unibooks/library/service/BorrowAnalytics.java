@@ -0,0 +1,231 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.AnalyticsResponse;
+import com.unibooks.library.dto.AnalyticsRow;
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowRollup;
+import com.unibooks.library.model.BorrowRollup.Granularity;
+import com.unibooks.library.repository.BorrowRollupRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Borrow analytics served from hourly, daily and monthly rollups. Rollups are
+ * fed from the borrow event outbox inside the relay's transaction, so a batch
+ * is added exactly when it is marked published. The update runs under a
+ * savepoint: a batch it keeps failing on is skipped after a few deliveries
+ * rather than holding up the other sinks, and is only counted again by a
+ * rebuild. When the table is empty, as on first start, it is filled from
+ * borrow_records history.
+ */
+@Service
+public class BorrowAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowAnalytics.class);
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_BUCKETS = 2000;
+    private static final double SECONDS_PER_DAY = 86400.0;
+    static final int MAX_BATCH_ATTEMPTS = 3;
+
+    @Autowired
+    private BorrowRollupRepository borrowRollupRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate savepoint;
+    private Counter skippedBatches;
+
+    // the relay retries the oldest unpublished batch, so the batch that keeps failing is the one tracked here
+    private final Object failureLock = new Object();
+    private Long failingBatchId;
+    private int failingBatchAttempts;
+
+    @PostConstruct
+    public void init() {
+        savepoint = new TransactionTemplate(transactionManager);
+        savepoint.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        skippedBatches = Counter.builder("library.analytics.skipped.batches")
+                .description("Borrow event batches left out of the rollups after repeated failures")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onBorrowEvents(InProcessBorrowEventSink.BorrowEventsPublished published) {
+        List<Long> eventIds = new ArrayList<>();
+        for (BorrowEventMessage event : published.getEvents()) {
+            eventIds.add(event.getId());
+        }
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Long batchId = eventIds.stream().min(Long::compare).orElseThrow();
+        try {
+            savepoint.executeWithoutResult(status ->
+                    jdbcTemplate.update(BorrowRollupRepository.ADD_EVENTS, Map.of("eventIds", eventIds)));
+        } catch (RuntimeException e) {
+            if (recordFailure(batchId) < MAX_BATCH_ATTEMPTS) {
+                throw e;
+            }
+            skippedBatches.increment();
+            log.error("Skipping borrow events {}..{} in the analytics rollups after {} failed attempts; "
+                    + "a rebuild will count them", batchId, eventIds.stream().max(Long::compare).orElseThrow(),
+                    MAX_BATCH_ATTEMPTS, e);
+        }
+        recordSuccess(batchId);
+    }
+
+    private int recordFailure(Long batchId) {
+        synchronized (failureLock) {
+            if (!batchId.equals(failingBatchId)) {
+                failingBatchId = batchId;
+                failingBatchAttempts = 0;
+            }
+            return ++failingBatchAttempts;
+        }
+    }
+
+    private void recordSuccess(Long batchId) {
+        synchronized (failureLock) {
+            if (batchId.equals(failingBatchId)) {
+                failingBatchId = null;
+                failingBatchAttempts = 0;
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (borrowRollupRepository.count() == 0) {
+                rebuild();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Backfilling borrow analytics failed", e);
+        }
+    }
+
+    /**
+     * Recomputes every rollup from borrow_records. Events the relay delivers
+     * while this runs may already be part of the history, so counts near the
+     * rebuild can be off by one relay batch.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            borrowRollupRepository.deleteAllInBatch();
+            borrowRollupRepository.addHistory();
+        });
+        log.info("Rebuilt borrow analytics rollups in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @Transactional(readOnly = true)
+    public AnalyticsResponse query(LocalDate from, LocalDate to, String granularityParam, String category) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate begin = from == null ? end.minusDays(DEFAULT_RANGE_DAYS - 1) : from;
+        if (begin.isAfter(end)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        Granularity granularity = granularityParam == null || granularityParam.isBlank()
+                ? defaultGranularity(begin, end)
+                : parseGranularity(granularityParam);
+
+        long buckets = switch (granularity) {
+            case HOUR -> 24 * (ChronoUnit.DAYS.between(begin, end) + 1);
+            case DAY -> ChronoUnit.DAYS.between(begin, end) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(begin.withDayOfMonth(1), end.withDayOfMonth(1)) + 1;
+        };
+        if (buckets > MAX_BUCKETS) {
+            throw new RuntimeException("Range spans " + buckets + " " + granularity.name().toLowerCase(Locale.ROOT)
+                    + " buckets; at most " + MAX_BUCKETS + " are allowed, use a coarser granularity");
+        }
+
+        // buckets are aligned to their start, so a month bucket starting before from still belongs to the range
+        LocalDate rangeStart = granularity == Granularity.MONTH ? begin.withDayOfMonth(1) : begin;
+        List<BorrowRollup> rollups = category == null || category.isBlank()
+                ? borrowRollupRepository.findRange(granularity, rangeStart.atStartOfDay(), end.plusDays(1).atStartOfDay())
+                : borrowRollupRepository.findRangeForCategory(granularity, category.trim(),
+                        rangeStart.atStartOfDay(), end.plusDays(1).atStartOfDay());
+
+        List<AnalyticsRow> rows = new ArrayList<>();
+        Map<String, BorrowRollup> totals = new TreeMap<>();
+        for (BorrowRollup rollup : rollups) {
+            rows.add(toRow(rollup, true));
+            BorrowRollup total = totals.computeIfAbsent(rollup.getCategory(), key -> {
+                BorrowRollup empty = new BorrowRollup();
+                empty.setCategory(key);
+                return empty;
+            });
+            total.setBorrowed(total.getBorrowed() + rollup.getBorrowed());
+            total.setReturned(total.getReturned() + rollup.getReturned());
+            total.setLoanSeconds(total.getLoanSeconds() + rollup.getLoanSeconds());
+            total.setOverdue(total.getOverdue() + rollup.getOverdue());
+            total.setReturnedLate(total.getReturnedLate() + rollup.getReturnedLate());
+        }
+
+        List<AnalyticsRow> categoryRows = new ArrayList<>();
+        for (BorrowRollup total : totals.values()) {
+            categoryRows.add(toRow(total, false));
+        }
+        return new AnalyticsResponse(granularity.name(), begin, end,
+                category == null || category.isBlank() ? null : category.trim(), rows, categoryRows);
+    }
+
+    private static AnalyticsRow toRow(BorrowRollup rollup, boolean withBucket) {
+        Double averageLoanDays = rollup.getReturned() == 0 ? null
+                : rollup.getLoanSeconds() / SECONDS_PER_DAY / rollup.getReturned();
+        Double overdueRate = rollup.getBorrowed() == 0 ? null
+                : (double) rollup.getOverdue() / rollup.getBorrowed();
+        return new AnalyticsRow(withBucket ? rollup.getBucketStart() : null, rollup.getCategory(),
+                rollup.getBorrowed(), rollup.getReturned(), averageLoanDays,
+                rollup.getOverdue(), rollup.getReturnedLate(), overdueRate);
+    }
+
+    private static Granularity defaultGranularity(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days <= 2) {
+            return Granularity.HOUR;
+        }
+        return days <= 92 ? Granularity.DAY : Granularity.MONTH;
+    }
+
+    private static Granularity parseGranularity(String value) {
+        try {
+            return Granularity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid granularity: " + value + " (use hour, day or month)");
+        }
+    }
+}
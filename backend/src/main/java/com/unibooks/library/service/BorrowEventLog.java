@@ -0,0 +1,80 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.repository.BorrowEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends borrow status transitions to the borrow_events outbox. Every method
+ * must join the transaction that makes the change, so an event exists exactly
+ * when its change commits. Rows are written through JDBC so that bulk
+ * transitions become one batched insert.
+ */
+@Component
+public class BorrowEventLog {
+
+    private static final String INSERT_SQL = "INSERT INTO borrow_events "
+            + "(borrow_record_id, user_id, book_id, from_status, to_status, occurred_at, published) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BorrowEventRepository borrowEventRepository;
+
+    public static final class Transition {
+        private final Long borrowRecordId;
+        private final Long userId;
+        private final Long bookId;
+
+        public Transition(Long borrowRecordId, Long userId, Long bookId) {
+            this.borrowRecordId = borrowRecordId;
+            this.userId = userId;
+            this.bookId = bookId;
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long borrowRecordId, Long userId, Long bookId, BorrowStatus from, BorrowStatus to) {
+        recordAll(List.of(new Transition(borrowRecordId, userId, bookId)), from, to);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Transition> transitions, BorrowStatus from, BorrowStatus to) {
+        if (transitions.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (Transition transition : transitions) {
+            args.add(new Object[] {
+                    transition.borrowRecordId,
+                    transition.userId,
+                    transition.bookId,
+                    from != null ? from.name() : null,
+                    to.name(),
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    /**
+     * Records the BORROWED to OVERDUE moves for every row matching the sweeper's
+     * predicate; call it immediately before the sweeper's update.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordOverdue(LocalDateTime now) {
+        return borrowEventRepository.recordOverdue(now);
+    }
+}
@@ -0,0 +1,21 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+
+import java.util.List;
+
+/**
+ * Destination for borrow events delivered by the outbox relay. Event ids are
+ * unique but not a delivery order: a batch is sorted by id, yet a lower id can
+ * commit, and so be delivered, after a higher one, and concurrent relays hand
+ * out batches independently. Never treat the highest id seen as a watermark.
+ * Events are delivered at least once: a sink that throws causes the whole batch
+ * to be retried on the next run, so sinks should tolerate repeats by checking
+ * {@link BorrowEventMessage#getId()}.
+ */
+public interface BorrowEventSink {
+
+    String getName();
+
+    void publish(List<BorrowEventMessage> batch) throws Exception;
+}
@@ -0,0 +1,78 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.repository.UserBorrowSummaryRepository;
+import com.unibooks.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Enforces the per-user borrowing limit against the user_borrow_summary counter.
+ * A reservation is one conditional increment that also row-locks the user's
+ * counter, so concurrent submits by the same user are serialized and can never
+ * overshoot the limit. Callers must run inside their own transaction so a
+ * failed borrow rolls the reservation back.
+ */
+@Component
+public class BorrowLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(BorrowLimiter.class);
+
+    static final int MAX_BOOKS_PER_USER = 5;
+
+    @Autowired
+    private UserBorrowSummaryRepository userBorrowSummaryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long userId) {
+        if (userBorrowSummaryRepository.reserve(userId, MAX_BOOKS_PER_USER) == 1) {
+            return;
+        }
+        // no counter yet for this user: create it (a no-op if a concurrent submit won) and retry once;
+        // only locking reads are used here since a plain read would not see the other submit's row
+        userBorrowSummaryRepository.seed(userId);
+        if (userBorrowSummaryRepository.reserve(userId, MAX_BOOKS_PER_USER) == 1) {
+            return;
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        throw new RuntimeException("You have reached the maximum limit of " + MAX_BOOKS_PER_USER + " books (including pending requests)");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long userId, int count) {
+        if (count > 0) {
+            userBorrowSummaryRepository.release(userId, count);
+        }
+    }
+
+    /**
+     * Gives back the slots held by a book's open records; must run before the
+     * book and its records are deleted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseForBook(Long bookId) {
+        userBorrowSummaryRepository.releaseForBook(bookId);
+    }
+
+    /**
+     * Recomputes every counter from borrow_records so drift from manual data
+     * changes is corrected on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        userBorrowSummaryRepository.reconcileAll();
+        log.info("Reconciled borrow limits in {} ms", System.currentTimeMillis() - start);
+    }
+}
@@ -1,27 +1,45 @@
 package com.unibooks.library.service;
 
+import com.unibooks.library.dto.BorrowPageResponse;
 import com.unibooks.library.dto.BorrowRequest;
+import com.unibooks.library.dto.BulkDecisionRequest;
+import com.unibooks.library.dto.BulkDecisionResponse;
+import com.unibooks.library.dto.BulkDecisionResult;
+import com.unibooks.library.dto.LibraryEvent;
 import com.unibooks.library.dto.BorrowResponse;
+import com.unibooks.library.dto.BorrowRow;
+import com.unibooks.library.dto.BorrowSearchCriteria;
 import com.unibooks.library.dto.ReturnRequest;
+import com.unibooks.library.dto.UserPrincipal;
 import com.unibooks.library.model.Book;
 import com.unibooks.library.model.BorrowRecord;
 import com.unibooks.library.model.BorrowRecord.BorrowStatus;
 import com.unibooks.library.model.User;
 import com.unibooks.library.repository.BookRepository;
 import com.unibooks.library.repository.BorrowRecordRepository;
-import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.util.CursorCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class BorrowService {
 
+    private static final Logger log = LoggerFactory.getLogger(BorrowService.class);
+
     @Autowired
     private BorrowRecordRepository borrowRecordRepository;
 
@@ -29,46 +47,63 @@ public class BorrowService {
     private BookRepository bookRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private BorrowLimiter borrowLimiter;
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private LibraryEventBus libraryEventBus;
+
+    @Autowired
+    private LibraryStats libraryStats;
+
+    @Autowired
+    private BorrowEventLog borrowEventLog;
 
     private static final int DEFAULT_BORROW_DAYS = 14;
-    private static final int MAX_BOOKS_PER_USER = 5;
-    private static final double FINE_PER_DAY = 10.0;
+    static final double FINE_PER_DAY = 10.0;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // the unpaged staff lists stop here; the rest is reachable through searchBorrowRecords
+    private static final int LEGACY_LIST_LIMIT = 1000;
+    private static final int MAX_BULK_DECISIONS = 1000;
 
     @Transactional
     public BorrowResponse borrowBook(BorrowRequest request) {
-        
-        User user = userRepository.findById(request.getUserId())
+        // taken first: it row-locks the user's counter, which also serializes the duplicate check below
+        borrowLimiter.reserve(request.getUserId());
+
+        // a detached user built from the cached principal: enough for the foreign key and the response, without a query
+        User user = userPrincipalCache.findById(request.getUserId())
+                .map(UserPrincipal::toUser)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Book book = bookRepository.findById(request.getBookId())
                 .orElseThrow(() -> new RuntimeException("Book not found"));
 
         if (book.getAvailableCopies() <= 0) {
-            throw new RuntimeException("Book is not available for borrowing");
+            throw new RuntimeException("Book is not available for borrowing; place a hold to join the waitlist");
         }
 
-        var existingPendingRequest = borrowRecordRepository.findActiveBookBorrowByUser(
-                user.getId(), book.getId(), BorrowStatus.PENDING);
-        if (existingPendingRequest.isPresent()) {
+        List<BorrowStatus> existing = borrowRecordRepository.findStatusesForUserAndBook(
+                user.getId(), book.getId(), List.of(BorrowStatus.PENDING, BorrowStatus.BORROWED));
+        if (existing.contains(BorrowStatus.PENDING)) {
             throw new RuntimeException("You already have a pending request for this book");
         }
-
-        var existingBorrow = borrowRecordRepository.findActiveBookBorrowByUser(
-                user.getId(), book.getId(), BorrowStatus.BORROWED);
-        if (existingBorrow.isPresent()) {
+        if (existing.contains(BorrowStatus.BORROWED)) {
             throw new RuntimeException("You have already borrowed this book");
         }
 
-        long activeBorrows = borrowRecordRepository.countByUserIdAndStatus(
-                user.getId(), BorrowStatus.BORROWED);
-        long pendingRequests = borrowRecordRepository.countByUserIdAndStatus(
-                user.getId(), BorrowStatus.PENDING);
-        
-        if (activeBorrows + pendingRequests >= MAX_BOOKS_PER_USER) {
-            throw new RuntimeException("You have reached the maximum limit of " + MAX_BOOKS_PER_USER + " books (including pending requests)");
-        }
-
         BorrowRecord borrowRecord = new BorrowRecord();
         borrowRecord.setUser(user);
         borrowRecord.setBook(book);
@@ -82,6 +117,10 @@ public class BorrowService {
         borrowRecord.setStatus(BorrowStatus.PENDING);
 
         BorrowRecord savedRecord = borrowRecordRepository.save(borrowRecord);
+        bookSuggestionIndex.recordBorrow(book.getId());
+        libraryEventBus.publish(LibraryEvent.Type.BORROW_REQUESTED, savedRecord.getId(), user.getId(), book.getId());
+        libraryStats.borrowsMoved(null, BorrowStatus.PENDING, 1);
+        borrowEventLog.record(savedRecord.getId(), user.getId(), book.getId(), null, BorrowStatus.PENDING);
 
         return convertToResponse(savedRecord);
     }
@@ -91,20 +130,25 @@ public class BorrowService {
         BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
                 .orElseThrow(() -> new RuntimeException("Borrow request not found"));
 
-        if (borrowRecord.getStatus() != BorrowStatus.PENDING) {
+        // claiming the request and taking a copy are both conditional updates, so two
+        // librarians approving at once can neither double-approve nor oversell a title
+        if (borrowRecordRepository.transitionStatus(borrowRecordId, List.of(BorrowStatus.PENDING), BorrowStatus.BORROWED) == 0) {
             throw new RuntimeException("Only pending requests can be approved");
         }
 
         Book book = borrowRecord.getBook();
-        if (book.getAvailableCopies() <= 0) {
+        if (bookRepository.decrementAvailableCopies(book.getId()) == 0) {
             throw new RuntimeException("Book is no longer available");
         }
+        catalogCache.invalidateBook(book.getId());
+        libraryEventBus.publish(LibraryEvent.Type.BORROW_APPROVED, borrowRecordId, borrowRecord.getUser().getId(), book.getId());
+        libraryEventBus.availabilityChanged(book.getId());
+
+        libraryStats.borrowsMoved(BorrowStatus.PENDING, BorrowStatus.BORROWED, 1);
+        borrowEventLog.record(borrowRecordId, borrowRecord.getUser().getId(), book.getId(), BorrowStatus.PENDING, BorrowStatus.BORROWED);
 
         borrowRecord.setStatus(BorrowStatus.BORROWED);
         borrowRecord.setApprovedDate(LocalDateTime.now());
-        
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
 
         BorrowRecord updatedRecord = borrowRecordRepository.save(borrowRecord);
         return convertToResponse(updatedRecord);
@@ -115,9 +159,15 @@ public class BorrowService {
         BorrowRecord borrowRecord = borrowRecordRepository.findById(borrowRecordId)
                 .orElseThrow(() -> new RuntimeException("Borrow request not found"));
 
-        if (borrowRecord.getStatus() != BorrowStatus.PENDING) {
+        if (borrowRecordRepository.transitionStatus(borrowRecordId, List.of(BorrowStatus.PENDING), BorrowStatus.REJECTED) == 0) {
             throw new RuntimeException("Only pending requests can be rejected");
         }
+        borrowLimiter.release(borrowRecord.getUser().getId(), 1);
+        libraryStats.borrowsMoved(BorrowStatus.PENDING, BorrowStatus.REJECTED, 1);
+        borrowEventLog.record(borrowRecordId, borrowRecord.getUser().getId(), borrowRecord.getBook().getId(),
+                BorrowStatus.PENDING, BorrowStatus.REJECTED);
+        libraryEventBus.publish(LibraryEvent.Type.BORROW_REJECTED, borrowRecordId,
+                borrowRecord.getUser().getId(), borrowRecord.getBook().getId());
 
         borrowRecord.setStatus(BorrowStatus.REJECTED);
         borrowRecord.setRejectionReason(reason != null ? reason : "Request rejected by librarian");
@@ -135,6 +185,13 @@ public class BorrowService {
             throw new RuntimeException("Book has already been returned");
         }
 
+        if (borrowRecordRepository.transitionStatus(borrowRecord.getId(),
+                List.of(BorrowStatus.BORROWED, BorrowStatus.OVERDUE), BorrowStatus.RETURNED) == 0) {
+            throw new RuntimeException("Only borrowed books can be returned");
+        }
+        borrowLimiter.release(borrowRecord.getUser().getId(), 1);
+
+        BorrowStatus previousStatus = borrowRecord.getStatus();
         LocalDateTime returnDate = LocalDateTime.now();
         borrowRecord.setReturnDate(returnDate);
 
@@ -147,110 +204,293 @@ public class BorrowService {
         borrowRecord.setStatus(BorrowStatus.RETURNED);
 
         Book book = borrowRecord.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+        // a copy someone is waiting for goes straight to the head of the hold queue instead of the shelf
+        if (!holdService.allocateReturnedCopy(book.getId())) {
+            if (bookRepository.incrementAvailableCopies(book.getId()) == 0) {
+                log.warn("Book {} already has all copies available; return of record {} not counted", book.getId(), borrowRecord.getId());
+            }
+            catalogCache.invalidateBook(book.getId());
+            libraryEventBus.availabilityChanged(book.getId());
+        }
+        libraryEventBus.publish(LibraryEvent.Type.BOOK_RETURNED, borrowRecord.getId(), borrowRecord.getUser().getId(), book.getId());
+        libraryStats.borrowsMoved(previousStatus, BorrowStatus.RETURNED, 1);
+        borrowEventLog.record(borrowRecord.getId(), borrowRecord.getUser().getId(), book.getId(), previousStatus, BorrowStatus.RETURNED);
+        if (previousStatus == BorrowStatus.OVERDUE) {
+            libraryStats.refreshFines();
+        }
 
         BorrowRecord updatedRecord = borrowRecordRepository.save(borrowRecord);
 
         return convertToResponse(updatedRecord);
     }
 
-    public List<BorrowResponse> getUserBorrowHistory(Long userId) {
-        List<BorrowRecord> records = borrowRecordRepository.findByUserIdOrderByBorrowDateDesc(userId);
-        List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+    /**
+     * Approves or rejects many pending requests in one transaction. The requests
+     * and the affected books are locked up front, copies are taken with a single
+     * decrement per book in request order, and statuses are written with one
+     * update per outcome.
+     */
+    @Transactional
+    public BulkDecisionResponse bulkDecide(BulkDecisionRequest request) {
+        boolean approve;
+        if ("APPROVE".equalsIgnoreCase(request.getAction())) {
+            approve = true;
+        } else if ("REJECT".equalsIgnoreCase(request.getAction())) {
+            approve = false;
+        } else {
+            throw new RuntimeException("Action must be APPROVE or REJECT");
         }
-        return responses;
-    }
 
-    public List<BorrowResponse> getUserActiveBorrows(Long userId) {
-        List<BorrowRecord> records = borrowRecordRepository.findByUserIdAndStatus(userId, BorrowStatus.BORROWED);
+        List<Object[]> rows;
+        List<Long> requestedIds = request.getBorrowRecordIds();
+        if (requestedIds != null && !requestedIds.isEmpty()) {
+            if (requestedIds.size() > MAX_BULK_DECISIONS) {
+                throw new RuntimeException("At most " + MAX_BULK_DECISIONS + " requests can be processed at once");
+            }
+            rows = borrowRecordRepository.lockForDecision(requestedIds);
+        } else if (request.getBookId() != null || request.getUserId() != null) {
+            int limit = MAX_BULK_DECISIONS;
+            if (request.getLimit() != null && request.getLimit() > 0) {
+                limit = Math.min(request.getLimit(), MAX_BULK_DECISIONS);
+            }
+            rows = borrowRecordRepository.lockPendingForDecision(request.getBookId(), request.getUserId(), limit);
+        } else {
+            throw new RuntimeException("Provide borrowRecordIds or a bookId/userId filter");
+        }
 
-        for (BorrowRecord record : records) {
-            checkIfOverdue(record);
+        BulkDecisionResponse response = new BulkDecisionResponse();
+        Map<Long, List<Long>> pendingByBook = new LinkedHashMap<>();
+        Map<Long, Integer> pendingPerUser = new HashMap<>();
+        Map<Long, Long[]> pendingRecords = new HashMap<>();
+        Set<Long> found = new HashSet<>();
+        for (Object[] row : rows) {
+            Long recordId = ((Number) row[0]).longValue();
+            Long bookId = ((Number) row[1]).longValue();
+            found.add(recordId);
+            if (!BorrowStatus.PENDING.name().equals(row[3])) {
+                addResult(response, recordId, "FAILED", approve
+                        ? "Only pending requests can be approved"
+                        : "Only pending requests can be rejected");
+                continue;
+            }
+            pendingByBook.computeIfAbsent(bookId, id -> new ArrayList<>()).add(recordId);
+            pendingPerUser.merge(((Number) row[2]).longValue(), 1, Integer::sum);
+            pendingRecords.put(recordId, new Long[] {((Number) row[2]).longValue(), bookId});
         }
-        
-        List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        if (requestedIds != null) {
+            for (Long id : requestedIds) {
+                if (!found.contains(id)) {
+                    addResult(response, id, "FAILED", "Borrow request not found");
+                }
+            }
         }
-        return responses;
+        if (pendingByBook.isEmpty()) {
+            return response;
+        }
+
+        if (!approve) {
+            List<Long> rejectedIds = new ArrayList<>();
+            pendingByBook.values().forEach(rejectedIds::addAll);
+            String reason = request.getReason() != null ? request.getReason() : "Request rejected by librarian";
+            borrowRecordRepository.markRejected(rejectedIds, reason, BorrowStatus.REJECTED, BorrowStatus.PENDING);
+            libraryStats.borrowsMoved(BorrowStatus.PENDING, BorrowStatus.REJECTED, rejectedIds.size());
+            borrowEventLog.recordAll(transitions(rejectedIds, pendingRecords), BorrowStatus.PENDING, BorrowStatus.REJECTED);
+            pendingPerUser.forEach(borrowLimiter::release);
+            for (Long id : rejectedIds) {
+                addResult(response, id, "REJECTED", null);
+                libraryEventBus.publish(LibraryEvent.Type.BORROW_REJECTED, id, pendingRecords.get(id)[0], pendingRecords.get(id)[1]);
+            }
+            return response;
+        }
+
+        Map<Long, Integer> available = new LinkedHashMap<>();
+        for (Object[] row : bookRepository.lockAvailableCopies(pendingByBook.keySet())) {
+            available.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+
+        List<Long> approvedIds = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> entry : pendingByBook.entrySet()) {
+            Long bookId = entry.getKey();
+            List<Long> recordIds = entry.getValue();
+            int granted = Math.min(recordIds.size(), available.getOrDefault(bookId, 0));
+            if (granted > 0) {
+                bookRepository.decrementAvailableCopiesBy(bookId, granted);
+                catalogCache.invalidateBook(bookId);
+                libraryEventBus.availabilityChanged(bookId);
+            }
+            for (int i = 0; i < recordIds.size(); i++) {
+                if (i < granted) {
+                    approvedIds.add(recordIds.get(i));
+                    addResult(response, recordIds.get(i), "APPROVED", null);
+                    libraryEventBus.publish(LibraryEvent.Type.BORROW_APPROVED, recordIds.get(i),
+                            pendingRecords.get(recordIds.get(i))[0], bookId);
+                } else {
+                    addResult(response, recordIds.get(i), "FAILED", "Book is no longer available");
+                }
+            }
+        }
+        if (!approvedIds.isEmpty()) {
+            borrowRecordRepository.markApproved(approvedIds, LocalDateTime.now(), BorrowStatus.BORROWED, BorrowStatus.PENDING);
+            libraryStats.borrowsMoved(BorrowStatus.PENDING, BorrowStatus.BORROWED, approvedIds.size());
+            borrowEventLog.recordAll(transitions(approvedIds, pendingRecords), BorrowStatus.PENDING, BorrowStatus.BORROWED);
+        }
+        return response;
     }
 
-    public List<BorrowResponse> getAllBorrowRecords() {
-        List<BorrowRecord> records = borrowRecordRepository.findAll();
+    /**
+     * Moves every borrow past its due date to OVERDUE and brings outstanding fines
+     * up to date, using two set-based updates instead of a save per record.
+     */
+    @Transactional
+    public int sweepOverdue(LocalDateTime now) {
+        borrowEventLog.recordOverdue(now);
+        int markedOverdue = borrowRecordRepository.markOverdue(now, BorrowStatus.BORROWED, BorrowStatus.OVERDUE);
+        int finesUpdated = borrowRecordRepository.refreshOverdueFines(now, FINE_PER_DAY);
+        libraryStats.borrowsMoved(BorrowStatus.BORROWED, BorrowStatus.OVERDUE, markedOverdue);
+        libraryStats.refreshFines();
+        if (markedOverdue > 0 || finesUpdated > 0) {
+            log.info("Overdue sweep marked {} borrows overdue and updated {} fines", markedOverdue, finesUpdated);
+        }
+        return markedOverdue;
+    }
 
-        for (BorrowRecord record : records) {
-            checkIfOverdue(record);
+    private static List<BorrowEventLog.Transition> transitions(List<Long> recordIds, Map<Long, Long[]> userAndBook) {
+        List<BorrowEventLog.Transition> transitions = new ArrayList<>();
+        for (Long id : recordIds) {
+            transitions.add(new BorrowEventLog.Transition(id, userAndBook.get(id)[0], userAndBook.get(id)[1]));
         }
-        
+        return transitions;
+    }
+
+    private static void addResult(BulkDecisionResponse response, Long borrowRecordId, String outcome, String message) {
+        response.getResults().add(new BulkDecisionResult(borrowRecordId, outcome, message));
+        switch (outcome) {
+            case "APPROVED":
+                response.setApproved(response.getApproved() + 1);
+                break;
+            case "REJECTED":
+                response.setRejected(response.getRejected() + 1);
+                break;
+            default:
+                response.setFailed(response.getFailed() + 1);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<BorrowResponse> getUserBorrowHistory(Long userId) {
+        List<BorrowRow> rows = borrowRecordRepository.findRowsByUser(userId);
         List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        for (BorrowRow row : rows) {
+            responses.add(convertToResponse(row));
         }
         return responses;
     }
 
-    public List<BorrowResponse> getActiveBorrows() {
-        List<BorrowRecord> records = borrowRecordRepository.findByStatusOrderByBorrowDateDesc(BorrowStatus.BORROWED);
-        
-        for (BorrowRecord record : records) {
-            checkIfOverdue(record);
-        }
-        
+    @Transactional(readOnly = true)
+    public List<BorrowResponse> getUserActiveBorrows(Long userId) {
+        List<BorrowRow> rows = borrowRecordRepository.findRowsByUserAndStatus(userId, BorrowStatus.BORROWED);
+
         List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        for (BorrowRow row : rows) {
+            responses.add(convertToResponse(row));
         }
         return responses;
     }
 
+    @Transactional(readOnly = true)
+    public BorrowPageResponse getAllBorrowRecords() {
+        return searchPage(new BorrowSearchCriteria(), null, null, LEGACY_LIST_LIMIT);
+    }
+
+    @Transactional(readOnly = true)
+    public BorrowPageResponse getActiveBorrows() {
+        BorrowSearchCriteria criteria = new BorrowSearchCriteria();
+        criteria.setStatus(List.of(BorrowStatus.BORROWED));
+        return searchPage(criteria, null, null, LEGACY_LIST_LIMIT);
+    }
+
+    @Transactional(readOnly = true)
     public List<BorrowResponse> getPendingRequests() {
-        List<BorrowRecord> records = borrowRecordRepository.findByStatusOrderByBorrowDateDesc(BorrowStatus.PENDING);
+        List<BorrowRow> rows = borrowRecordRepository.findRowsByStatus(BorrowStatus.PENDING);
         
         List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        for (BorrowRow row : rows) {
+            responses.add(convertToResponse(row));
         }
         return responses;
     }
 
+    @Transactional(readOnly = true)
     public List<BorrowResponse> getUserPendingRequests(Long userId) {
-        List<BorrowRecord> records = borrowRecordRepository.findByUserIdAndStatus(userId, BorrowStatus.PENDING);
+        List<BorrowRow> rows = borrowRecordRepository.findRowsByUserAndStatus(userId, BorrowStatus.PENDING);
         
         List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        for (BorrowRow row : rows) {
+            responses.add(convertToResponse(row));
         }
         return responses;
     }
 
-    public List<BorrowResponse> getOverdueBorrows() {
-        List<BorrowRecord> records = borrowRecordRepository.findByStatusAndDueDateBefore(
-                BorrowStatus.BORROWED, LocalDateTime.now());
+    @Transactional(readOnly = true)
+    public BorrowPageResponse getOverdueBorrows() {
+        BorrowSearchCriteria criteria = new BorrowSearchCriteria();
+        criteria.setStatus(List.of(BorrowStatus.BORROWED, BorrowStatus.OVERDUE));
+        criteria.setDueTo(LocalDateTime.now());
+        return searchPage(criteria, null, null, LEGACY_LIST_LIMIT);
+    }
 
-        for (BorrowRecord record : records) {
-            record.setStatus(BorrowStatus.OVERDUE);
-            long daysOverdue = ChronoUnit.DAYS.between(record.getDueDate(), LocalDateTime.now());
-            record.setFineAmount(daysOverdue * FINE_PER_DAY);
-            borrowRecordRepository.save(record);
+    @Transactional(readOnly = true)
+    public BorrowPageResponse searchBorrowRecords(BorrowSearchCriteria criteria, String cursor, Integer size) {
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (size != null) {
+            if (size <= 0) {
+                throw new RuntimeException("Page size must be positive");
+            }
+            pageSize = Math.min(size, MAX_PAGE_SIZE);
         }
-        
+
+        LocalDateTime lastBorrowDate = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                lastBorrowDate = LocalDateTime.parse(parts[0]);
+                lastId = Long.valueOf(parts[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        return searchPage(criteria, lastBorrowDate, lastId, pageSize);
+    }
+
+    private BorrowPageResponse searchPage(BorrowSearchCriteria criteria, LocalDateTime lastBorrowDate, Long lastId,
+                                          int pageSize) {
+        List<BorrowRow> rows = borrowRecordRepository.searchPageAfter(criteria, lastBorrowDate, lastId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
         List<BorrowResponse> responses = new ArrayList<>();
-        for (BorrowRecord record : records) {
-            responses.add(convertToResponse(record));
+        for (BorrowRow row : rows) {
+            responses.add(convertToResponse(row));
         }
-        return responses;
+
+        String nextCursor = null;
+        if (hasMore) {
+            BorrowRow last = rows.get(rows.size() - 1);
+            nextCursor = CursorCodec.encode(last.getBorrowDate().toString(), String.valueOf(last.getId()));
+        }
+        return new BorrowPageResponse(responses, nextCursor, hasMore);
     }
 
+    @Transactional(readOnly = true)
     public BorrowResponse getBorrowRecordById(Long id) {
-        BorrowRecord record = borrowRecordRepository.findById(id)
+        BorrowRow row = borrowRecordRepository.findRowById(id)
                 .orElseThrow(() -> new RuntimeException("Borrow record not found"));
-        
-        checkIfOverdue(record);
-        
-        return convertToResponse(record);
+
+        return convertToResponse(row);
     }
 
     @Transactional
@@ -271,32 +511,35 @@ public class BorrowService {
         if (borrowRecord.getStatus() == BorrowStatus.OVERDUE) {
             borrowRecord.setStatus(BorrowStatus.BORROWED);
             borrowRecord.setFineAmount(0.0);
+            libraryStats.borrowsMoved(BorrowStatus.OVERDUE, BorrowStatus.BORROWED, 1);
+            borrowEventLog.record(borrowRecord.getId(), borrowRecord.getUser().getId(), borrowRecord.getBook().getId(),
+                    BorrowStatus.OVERDUE, BorrowStatus.BORROWED);
+            libraryStats.refreshFines();
         }
 
         BorrowRecord updatedRecord = borrowRecordRepository.save(borrowRecord);
         return convertToResponse(updatedRecord);
     }
 
-    private void checkIfOverdue(BorrowRecord record) {
-        if (record.getStatus() == BorrowStatus.BORROWED && 
-            LocalDateTime.now().isAfter(record.getDueDate())) {
-            record.setStatus(BorrowStatus.OVERDUE);
-            long daysOverdue = ChronoUnit.DAYS.between(record.getDueDate(), LocalDateTime.now());
-            record.setFineAmount(daysOverdue * FINE_PER_DAY);
-            borrowRecordRepository.save(record);
-        }
+    private BorrowResponse convertToResponse(BorrowRecord record) {
+        User user = record.getUser();
+        Book book = record.getBook();
+        return convertToResponse(new BorrowRow(record.getId(), user.getId(), user.getName(), user.getEmail(),
+                book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                record.getBorrowDate(), record.getDueDate(), record.getReturnDate(), record.getApprovedDate(),
+                record.getStatus(), record.getFineAmount(), record.getRejectionReason()));
     }
 
-    private BorrowResponse convertToResponse(BorrowRecord record) {
+    private BorrowResponse convertToResponse(BorrowRow record) {
         BorrowResponse response = new BorrowResponse();
         response.setId(record.getId());
-        response.setUserId(record.getUser().getId());
-        response.setUserName(record.getUser().getName());
-        response.setUserEmail(record.getUser().getEmail());
-        response.setBookId(record.getBook().getId());
-        response.setBookTitle(record.getBook().getTitle());
-        response.setBookAuthor(record.getBook().getAuthor());
-        response.setBookIsbn(record.getBook().getIsbn());
+        response.setUserId(record.getUserId());
+        response.setUserName(record.getUserName());
+        response.setUserEmail(record.getUserEmail());
+        response.setBookId(record.getBookId());
+        response.setBookTitle(record.getBookTitle());
+        response.setBookAuthor(record.getBookAuthor());
+        response.setBookIsbn(record.getBookIsbn());
         response.setBorrowDate(record.getBorrowDate());
         response.setDueDate(record.getDueDate());
         response.setReturnDate(record.getReturnDate());
@@ -305,6 +548,12 @@ public class BorrowService {
         response.setRejectionReason(record.getRejectionReason());
 
         LocalDateTime now = LocalDateTime.now();
+        // the sweeper runs periodically, so report what it will write for borrows it has not reached yet
+        if ((record.getStatus() == BorrowStatus.BORROWED || record.getStatus() == BorrowStatus.OVERDUE)
+                && now.isAfter(record.getDueDate())) {
+            response.setStatus(BorrowStatus.OVERDUE);
+            response.setFineAmount(ChronoUnit.DAYS.between(record.getDueDate(), now) * FINE_PER_DAY);
+        }
         if (record.getReturnDate() == null) {
             if (now.isBefore(record.getDueDate())) {
                 response.setIsOverdue(false);
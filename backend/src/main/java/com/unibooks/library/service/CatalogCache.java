@@ -0,0 +1,59 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.config.CacheConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invalidation for the catalog caches. Cached listings are keyed by a generation
+ * number, so bumping it makes every listing loaded before the change unreachable,
+ * including ones still being loaded by concurrent readers.
+ */
+@Component("catalogCache")
+public class CatalogCache {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final AtomicLong listGeneration = new AtomicLong();
+
+    public long listGeneration() {
+        return listGeneration.get();
+    }
+
+    /**
+     * Evicts the book and all listings now and, when called inside a transaction,
+     * again once the transaction completes so values read before the commit are dropped too.
+     */
+    public void invalidateBook(Long bookId) {
+        evict(bookId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(bookId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long bookId) {
+        listGeneration.incrementAndGet();
+        if (bookId != null) {
+            Cache books = cacheManager.getCache(CacheConfig.BOOKS);
+            if (books != null) {
+                books.evict(bookId);
+            }
+        }
+        Cache lists = cacheManager.getCache(CacheConfig.BOOK_LISTS);
+        if (lists != null) {
+            lists.clear();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.unibooks.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.unibooks.library.dto.BookResponse;
+import com.unibooks.library.dto.BorrowRow;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.util.CsvUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes books and borrow records straight from a streaming result set to the
+ * response, so memory use does not depend on the number of rows exported.
+ */
+@Service
+public class ExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final String[] BOOK_COLUMNS = {
+            "id", "title", "author", "isbn", "category", "totalCopies", "availableCopies", "coverImage"
+    };
+
+    private static final String[] BORROW_COLUMNS = {
+            "id", "userId", "userName", "userEmail", "bookId", "bookTitle", "bookAuthor", "bookIsbn",
+            "borrowDate", "dueDate", "returnDate", "approvedDate", "status", "fineAmount", "rejectionReason"
+    };
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public static String normalizeFormat(String format) {
+        String normalized = format == null ? FORMAT_NDJSON : format.toLowerCase(Locale.ROOT);
+        if (!normalized.equals(FORMAT_NDJSON) && !normalized.equals(FORMAT_CSV)) {
+            throw new RuntimeException("Unsupported export format: " + format);
+        }
+        return normalized;
+    }
+
+    public void exportBooks(OutputStream out, String format) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Book> books = bookRepository.streamAll()) {
+                Iterator<BookResponse> rows = books.map(book -> {
+                    // managed entities would otherwise pile up in the persistence context
+                    entityManager.detach(book);
+                    return BookResponse.fromBook(book);
+                }).iterator();
+                write(out, format, BOOK_COLUMNS, rows, book -> new Object[] {
+                        book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getCategory(),
+                        book.getTotalCopies(), book.getAvailableCopies(), book.getCoverImage()
+                });
+            }
+        });
+    }
+
+    public void exportBorrowRecords(OutputStream out, String format) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BorrowRow> records = borrowRecordRepository.streamAllRows()) {
+                write(out, format, BORROW_COLUMNS, records.iterator(), row -> new Object[] {
+                        row.getId(), row.getUserId(), row.getUserName(), row.getUserEmail(),
+                        row.getBookId(), row.getBookTitle(), row.getBookAuthor(), row.getBookIsbn(),
+                        row.getBorrowDate(), row.getDueDate(), row.getReturnDate(), row.getApprovedDate(),
+                        row.getStatus(), row.getFineAmount(), row.getRejectionReason()
+                });
+            }
+        });
+    }
+
+    private interface CsvColumns<T> {
+        Object[] values(T row);
+    }
+
+    private <T> void write(OutputStream out, String format, String[] columns, Iterator<T> rows, CsvColumns<T> csvColumns) {
+        try {
+            if (FORMAT_CSV.equals(format)) {
+                writeCsv(out, columns, rows, csvColumns);
+            } else {
+                writeNdjson(out, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> void writeNdjson(OutputStream out, Iterator<T> rows) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            long count = 0;
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            if (count > 0) {
+                out.write('\n');
+            }
+        }
+    }
+
+    private <T> void writeCsv(OutputStream out, String[] columns, Iterator<T> rows, CsvColumns<T> csvColumns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", columns));
+        writer.write('\n');
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] values = csvColumns.values(rows.next());
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(CsvUtils.escape(values[i]));
+            }
+            writer.write('\n');
+            if (++count % FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+}
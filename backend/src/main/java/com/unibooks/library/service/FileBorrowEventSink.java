@@ -0,0 +1,51 @@
+package com.unibooks.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibooks.library.dto.BorrowEventMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends delivered events to a JSON-lines file, one event per line. Enabled by
+ * setting {@code library.outbox.file-sink.path}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.outbox.file-sink.path")
+public class FileBorrowEventSink implements BorrowEventSink {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${library.outbox.file-sink.path}")
+    private Path path;
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void publish(List<BorrowEventMessage> batch) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BorrowEventMessage event : batch) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.write('\n');
+            }
+        }
+    }
+}
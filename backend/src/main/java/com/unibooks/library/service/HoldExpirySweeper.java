@@ -0,0 +1,36 @@
+package com.unibooks.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically expires holds that were not picked up in time and passes their
+ * copies down the queue.
+ */
+@Component
+public class HoldExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldExpirySweeper.class);
+
+    @Autowired
+    private HoldService holdService;
+
+    @Scheduled(initialDelayString = "${library.holds.expiry-sweep.initial-delay-ms:30000}",
+            fixedDelayString = "${library.holds.expiry-sweep.interval-ms:60000}")
+    public void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            // expire in batches so one run never holds locks on the whole backlog
+            while (holdService.expireReadyHolds(now) > 0) {
+                now = LocalDateTime.now();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Hold expiry sweep failed; it will be retried on the next run", e);
+        }
+    }
+}
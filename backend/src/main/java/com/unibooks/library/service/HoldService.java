@@ -0,0 +1,249 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.HoldRequest;
+import com.unibooks.library.dto.HoldResponse;
+import com.unibooks.library.dto.LibraryEvent;
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.Hold;
+import com.unibooks.library.model.Hold.HoldStatus;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.repository.HoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-book waitlist for titles with no copies on the shelf. Holds are queued by
+ * priority then arrival, and the head of a queue is found through the
+ * (book, status, priority descending, createdAt, id) index, so allocating a
+ * returned copy never scans the queue. Placing a hold and allocating a copy
+ * both lock the book row first, so a hold is never queued against a copy that
+ * is being shelved at the same moment. An allocated copy is kept off the shelf until the
+ * holder picks it up or the pickup window lapses.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoldService.class);
+
+    private static final int DEFAULT_BORROW_DAYS = 14;
+    private static final int EXPIRY_BATCH_SIZE = 500;
+    private static final List<HoldStatus> OPEN_STATUSES = List.of(HoldStatus.WAITING, HoldStatus.READY);
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private BorrowLimiter borrowLimiter;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private LibraryEventBus libraryEventBus;
+
+    @Autowired
+    private LibraryStats libraryStats;
+
+    @Autowired
+    private BorrowEventLog borrowEventLog;
+
+    @Value("${library.holds.pickup-window-hours:48}")
+    private int pickupWindowHours;
+
+    @Transactional
+    public HoldResponse placeHold(HoldRequest request) {
+        // locked before anything else is read, so the checks below see holds and returns committed by whoever held it
+        List<Object[]> locked = bookRepository.lockAvailableCopies(List.of(request.getBookId()));
+        if (locked.isEmpty()) {
+            throw new RuntimeException("Book not found");
+        }
+        int availableCopies = ((Number) locked.get(0)[1]).intValue();
+
+        // a detached user built from the cached principal: enough for the foreign key and the response, without a query
+        User user = userPrincipalCache.findById(request.getUserId())
+                .map(UserPrincipal::toUser)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Book book = bookRepository.getReferenceById(request.getBookId());
+
+        if (availableCopies > 0) {
+            throw new RuntimeException("Book is available; request it instead of placing a hold");
+        }
+
+        if (holdRepository.existsForUserAndBook(user.getId(), book.getId(), OPEN_STATUSES)) {
+            throw new RuntimeException("You already have a hold on this book");
+        }
+
+        if (!borrowRecordRepository.findStatusesForUserAndBook(user.getId(), book.getId(),
+                List.of(BorrowStatus.PENDING, BorrowStatus.BORROWED, BorrowStatus.OVERDUE)).isEmpty()) {
+            throw new RuntimeException("You already have this book on request or on loan");
+        }
+
+        Hold hold = new Hold();
+        hold.setUser(user);
+        hold.setBook(book);
+        hold.setPriority(request.getPriority() != null ? Math.max(request.getPriority(), 0) : 0);
+        hold.setStatus(HoldStatus.WAITING);
+        hold.setCreatedAt(LocalDateTime.now());
+
+        Hold savedHold = holdRepository.save(hold);
+        return getHold(savedHold.getId());
+    }
+
+    /**
+     * Hands a copy that just came back to the head of the book's queue. Returns
+     * false when nobody is waiting, in which case the caller shelves the copy.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean allocateReturnedCopy(Long bookId) {
+        // same lock order as placeHold: book row, then the queue
+        bookRepository.lockAvailableCopies(List.of(bookId));
+        List<Object[]> next = holdRepository.lockNextWaiting(bookId);
+        if (next.isEmpty()) {
+            return false;
+        }
+        Long holdId = ((Number) next.get(0)[0]).longValue();
+        Long userId = ((Number) next.get(0)[1]).longValue();
+        LocalDateTime now = LocalDateTime.now();
+        holdRepository.markReady(holdId, now, now.plusHours(pickupWindowHours), HoldStatus.READY, HoldStatus.WAITING);
+        libraryEventBus.publish(LibraryEvent.Type.HOLD_READY, null, userId, bookId);
+        return true;
+    }
+
+    /**
+     * Checks out the copy held for a READY hold. The copy was already taken off
+     * the shelf when the hold became ready, so availableCopies is not touched.
+     */
+    @Transactional
+    public HoldResponse fulfillHold(Long holdId) {
+        Hold hold = holdRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found"));
+
+        if (holdRepository.transition(List.of(holdId), List.of(HoldStatus.READY), HoldStatus.FULFILLED) == 0) {
+            throw new RuntimeException("Only ready holds can be picked up");
+        }
+        borrowLimiter.reserve(hold.getUser().getId());
+
+        LocalDateTime now = LocalDateTime.now();
+        BorrowRecord borrowRecord = new BorrowRecord();
+        borrowRecord.setUser(hold.getUser());
+        borrowRecord.setBook(hold.getBook());
+        borrowRecord.setBorrowDate(now);
+        borrowRecord.setApprovedDate(now);
+        borrowRecord.setDueDate(now.plusDays(DEFAULT_BORROW_DAYS));
+        borrowRecord.setStatus(BorrowStatus.BORROWED);
+        BorrowRecord savedRecord = borrowRecordRepository.save(borrowRecord);
+        libraryStats.borrowsMoved(null, BorrowStatus.BORROWED, 1);
+        borrowEventLog.record(savedRecord.getId(), hold.getUser().getId(), hold.getBook().getId(), null, BorrowStatus.BORROWED);
+
+        return getHold(holdId);
+    }
+
+    /** Cancels the hold only if it belongs to {@code ownerId}; null skips the check, for staff. */
+    @Transactional
+    public HoldResponse cancelHold(Long holdId, Long ownerId) {
+        Hold hold = holdRepository.findById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found"));
+        if (ownerId != null && !ownerId.equals(hold.getUser().getId())) {
+            throw new AccessDeniedException("You can only cancel your own holds");
+        }
+
+        boolean wasReady = hold.getStatus() == HoldStatus.READY;
+        if (holdRepository.transition(List.of(holdId), OPEN_STATUSES, HoldStatus.CANCELLED) == 0) {
+            throw new RuntimeException("Only waiting or ready holds can be cancelled");
+        }
+        if (wasReady) {
+            passCopyOn(hold.getBook().getId());
+        }
+        return getHold(holdId);
+    }
+
+    /**
+     * Expires READY holds whose pickup window has passed and passes each copy to
+     * the next hold in line, or back to the shelf.
+     */
+    @Transactional
+    public int expireReadyHolds(LocalDateTime now) {
+        List<Object[]> expired = holdRepository.lockExpiredReady(now, EXPIRY_BATCH_SIZE);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Object[] row : expired) {
+            ids.add(((Number) row[0]).longValue());
+        }
+        holdRepository.transition(ids, List.of(HoldStatus.READY), HoldStatus.EXPIRED);
+        for (Object[] row : expired) {
+            passCopyOn(((Number) row[1]).longValue());
+        }
+        log.info("Expired {} uncollected holds", expired.size());
+        return expired.size();
+    }
+
+    @Transactional(readOnly = true)
+    public HoldResponse getHold(Long holdId) {
+        HoldResponse response = holdRepository.findResponseById(holdId)
+                .orElseThrow(() -> new RuntimeException("Hold not found"));
+        return withPosition(response);
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldResponse> getUserHolds(Long userId) {
+        List<HoldResponse> responses = new ArrayList<>();
+        for (HoldResponse response : holdRepository.findResponsesByUser(userId, OPEN_STATUSES)) {
+            responses.add(withPosition(response));
+        }
+        return responses;
+    }
+
+    @Transactional(readOnly = true)
+    public List<HoldResponse> getBookQueue(Long bookId) {
+        List<HoldResponse> responses = new ArrayList<>();
+        for (HoldResponse response : holdRepository.findQueueForBook(bookId, OPEN_STATUSES)) {
+            responses.add(withPosition(response));
+        }
+        return responses;
+    }
+
+    private void passCopyOn(Long bookId) {
+        if (allocateReturnedCopy(bookId)) {
+            return;
+        }
+        if (bookRepository.incrementAvailableCopies(bookId) == 0) {
+            log.warn("Book {} already has all copies available; released hold copy not counted", bookId);
+        }
+        catalogCache.invalidateBook(bookId);
+        libraryEventBus.availabilityChanged(bookId);
+    }
+
+    private static HoldResponse withPosition(HoldResponse response) {
+        if (response.getStatus() != HoldStatus.WAITING) {
+            response.setQueuePosition(null);
+        }
+        return response;
+    }
+}
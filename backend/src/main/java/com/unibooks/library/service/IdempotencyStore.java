@@ -0,0 +1,130 @@
+package com.unibooks.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the successful response of each request sent with an
+ * {@code Idempotency-Key} header, so a client retry gets the original response
+ * back without running the operation again. Keys are scoped to the caller and
+ * the operation, held in memory up to a size bound and forgotten after a TTL.
+ * A retry that arrives while the original is still running waits for it.
+ * Failed requests are not remembered; they changed nothing and may be retried.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    private final Cache<String, Entry> entries;
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public IdempotencyStore(MeterRegistry meterRegistry,
+                            @Value("${library.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${library.idempotency.max-entries:100000}") long maxEntries) {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency");
+    }
+
+    /**
+     * Runs {@code action} once per key. {@code operation} names the endpoint and
+     * any path variables; {@code request} is the body, compared on replay so a key
+     * reused for a different request is rejected instead of answered wrongly.
+     */
+    public ResponseEntity<?> execute(String idempotencyKey, String operation, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = caller() + "\n" + operation + "\n" + idempotencyKey;
+        Entry created = new Entry(operation + "\n" + Objects.toString(request));
+        Entry existing = entries.asMap().putIfAbsent(cacheKey, created);
+        if (existing != null) {
+            return replay(existing, created.fingerprint);
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.asMap().remove(cacheKey, created);
+            created.response.completeExceptionally(e);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            entries.asMap().remove(cacheKey, created);
+        }
+        created.response.complete(response);
+        return response;
+    }
+
+    private static ResponseEntity<?> replay(Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            return error(HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+        }
+        ResponseEntity<?> original;
+        try {
+            original = existing.response.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still being processed");
+        } catch (ExecutionException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still being processed");
+        }
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+}
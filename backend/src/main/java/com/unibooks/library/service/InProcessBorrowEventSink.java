@@ -0,0 +1,42 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Republishes each delivered batch as a {@link BorrowEventsPublished} Spring
+ * event, so components in this application can react to borrow changes with an
+ * {@code @EventListener} instead of querying borrow_records.
+ */
+@Component
+public class InProcessBorrowEventSink implements BorrowEventSink {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    public static final class BorrowEventsPublished {
+        private final List<BorrowEventMessage> events;
+
+        BorrowEventsPublished(List<BorrowEventMessage> events) {
+            this.events = events;
+        }
+
+        public List<BorrowEventMessage> getEvents() {
+            return events;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "in-process";
+    }
+
+    @Override
+    public void publish(List<BorrowEventMessage> batch) {
+        applicationEventPublisher.publishEvent(new BorrowEventsPublished(List.copyOf(batch)));
+    }
+}
@@ -0,0 +1,236 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.LibraryEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans borrow and availability events out to Server-Sent Event subscribers.
+ * Events are published after the surrounding transaction commits. Staff see
+ * every event; other users see their own borrow events and availability
+ * changes. Each subscriber has a bounded buffer drained by a shared sender
+ * pool; when a slow client lets it fill up, the buffer is dropped and the
+ * client is told to resync instead of the server holding unbounded backlog.
+ */
+@Component
+public class LibraryEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryEventBus.class);
+
+    static final int BUFFER_SIZE = 256;
+    private static final int MAX_SUBSCRIBERS = 2000;
+    private static final int SENDER_THREADS = 4;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private Counter droppedEvents;
+
+    public LibraryEventBus() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "library-events-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("library.events.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        droppedEvents = Counter.builder("library.events.dropped")
+                .description("Events discarded because a subscriber's buffer was full")
+                .register(meterRegistry);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean staff;
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Long userId, boolean staff) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.staff = staff;
+        }
+
+        boolean accepts(LibraryEvent event) {
+            return staff
+                    || event.getType() == LibraryEvent.Type.AVAILABILITY_CHANGED
+                    || (userId != null && userId.equals(event.getUserId()));
+        }
+
+        void offer(Object item) {
+            if (!buffer.offer(item)) {
+                droppedEvents.increment(buffer.size() + 1);
+                buffer.clear();
+                overflowed.set(true);
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().name("RESYNC").data("", MediaType.TEXT_PLAIN));
+                }
+                Object item;
+                while ((item = buffer.poll()) != null) {
+                    if (item instanceof LibraryEvent event) {
+                        emitter.send(SseEmitter.event().name(event.getType().name()).data(event, MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(SseEmitter.event().comment(String.valueOf(item)));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away; the emitter callbacks may not fire for a broken pipe
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!buffer.isEmpty() || overflowed.get()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    public SseEmitter subscribe(Long userId, boolean staff) {
+        if (subscribers.size() >= MAX_SUBSCRIBERS) {
+            throw new RuntimeException("Too many open event streams");
+        }
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(emitter, userId, staff);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.offer("connected");
+        return emitter;
+    }
+
+    /**
+     * Queues the event for delivery once the current transaction commits, or
+     * straight away when there is none. Rolled-back changes are never announced.
+     */
+    public void publish(LibraryEvent.Type type, Long borrowRecordId, Long userId, Long bookId) {
+        LibraryEvent event = new LibraryEvent(type, borrowRecordId, userId, bookId, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Closes the user's event streams once the current transaction commits, e.g.
+     * after their sessions are revoked or their role changes. A subscriber's
+     * role is fixed when it subscribes, so it must reconnect, and be
+     * authenticated again, to see anything more. Only this instance's streams
+     * are closed; elsewhere they end at the emitter timeout.
+     */
+    public void disconnectUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    closeStreams(userId);
+                }
+            });
+        } else {
+            closeStreams(userId);
+        }
+    }
+
+    public void availabilityChanged(Long bookId) {
+        publish(LibraryEvent.Type.AVAILABILITY_CHANGED, null, null, bookId);
+    }
+
+    // keeps idle connections from being closed by proxies
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer("heartbeat");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    private void dispatch(LibraryEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(event)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private void closeStreams(Long userId) {
+        for (Subscriber subscriber : subscribers) {
+            if (userId.equals(subscriber.userId)) {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            log.debug("Event subscriber for user {} disconnected", subscriber.userId);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.LibraryStatsResponse;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.User.Role;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard totals kept as in-memory counters. Services report each change
+ * as a delta, applied once the transaction commits, so reading the totals is
+ * O(1). A periodic reconciliation recounts from the database to correct
+ * drift from changes made outside the services. Outstanding fines only
+ * change when the overdue sweeper runs, so they are recomputed after each
+ * sweep instead of tracked per change.
+ */
+@Component
+public class LibraryStats {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryStats.class);
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private final AtomicLong books = new AtomicLong();
+    private final Map<Role, AtomicLong> usersByRole = new EnumMap<>(Role.class);
+    private final Map<BorrowStatus, AtomicLong> borrowsByStatus = new EnumMap<>(BorrowStatus.class);
+    private volatile double finesOutstanding;
+    private volatile LocalDateTime reconciledAt;
+
+    public LibraryStats() {
+        for (Role role : Role.values()) {
+            usersByRole.put(role, new AtomicLong());
+        }
+        for (BorrowStatus status : BorrowStatus.values()) {
+            borrowsByStatus.put(status, new AtomicLong());
+        }
+    }
+
+    public void booksAdded(long count) {
+        afterCommit(() -> books.addAndGet(count));
+    }
+
+    /**
+     * Takes a book and its borrow records out of the totals. Call it before the
+     * delete, while the records it counts are still there.
+     */
+    public void bookRemoved(Long bookId) {
+        Map<BorrowStatus, Long> removed = new EnumMap<>(BorrowStatus.class);
+        double overdueFines = 0.0;
+        for (Object[] row : borrowRecordRepository.countAndSumFinesByStatusForBook(bookId)) {
+            BorrowStatus status = (BorrowStatus) row[0];
+            removed.put(status, (Long) row[1]);
+            if (status == BorrowStatus.OVERDUE && row[2] != null) {
+                overdueFines = (Double) row[2];
+            }
+        }
+        double finesRemoved = overdueFines;
+        afterCommit(() -> {
+            books.decrementAndGet();
+            removed.forEach((status, count) -> borrowsByStatus.get(status).addAndGet(-count));
+            if (finesRemoved > 0) {
+                finesOutstanding = Math.max(0.0, finesOutstanding - finesRemoved);
+            }
+        });
+    }
+
+    public void userAdded(Role role) {
+        afterCommit(() -> usersByRole.get(role).incrementAndGet());
+    }
+
+    public void userRemoved(Role role) {
+        afterCommit(() -> usersByRole.get(role).decrementAndGet());
+    }
+
+    public void userRoleChanged(Role from, Role to) {
+        if (from != to) {
+            afterCommit(() -> {
+                usersByRole.get(from).decrementAndGet();
+                usersByRole.get(to).incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * Records {@code count} borrow records moving from one status to another;
+     * {@code from} is null for newly created records.
+     */
+    public void borrowsMoved(BorrowStatus from, BorrowStatus to, long count) {
+        if (count == 0 || from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            if (from != null) {
+                borrowsByStatus.get(from).addAndGet(-count);
+            }
+            borrowsByStatus.get(to).addAndGet(count);
+        });
+    }
+
+    public void refreshFines() {
+        afterCommit(() -> finesOutstanding = sumOutstandingFines());
+    }
+
+    public long userCount(Role role) {
+        return usersByRole.get(role).get();
+    }
+
+    public LibraryStatsResponse snapshot() {
+        long students = usersByRole.get(Role.USER).get();
+        long librarians = usersByRole.get(Role.LIBRARIAN).get();
+        long admins = usersByRole.get(Role.ADMIN).get();
+        return new LibraryStatsResponse(
+                books.get(),
+                students + librarians + admins,
+                students,
+                librarians,
+                admins,
+                borrowsByStatus.get(BorrowStatus.PENDING).get(),
+                borrowsByStatus.get(BorrowStatus.BORROWED).get(),
+                borrowsByStatus.get(BorrowStatus.OVERDUE).get(),
+                borrowsByStatus.get(BorrowStatus.RETURNED).get(),
+                finesOutstanding,
+                reconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.stats.reconcile-interval-ms:600000}",
+            fixedDelayString = "${library.stats.reconcile-interval-ms:600000}")
+    public synchronized void reconcile() {
+        try {
+            books.set(bookRepository.count());
+
+            Map<Role, Long> roleCounts = new EnumMap<>(Role.class);
+            for (Object[] row : userRepository.countByRole()) {
+                roleCounts.put((Role) row[0], (Long) row[1]);
+            }
+            for (Role role : Role.values()) {
+                usersByRole.get(role).set(roleCounts.getOrDefault(role, 0L));
+            }
+
+            Map<BorrowStatus, Long> statusCounts = new EnumMap<>(BorrowStatus.class);
+            for (Object[] row : borrowRecordRepository.countByStatus()) {
+                statusCounts.put((BorrowStatus) row[0], (Long) row[1]);
+            }
+            for (BorrowStatus status : BorrowStatus.values()) {
+                borrowsByStatus.get(status).set(statusCounts.getOrDefault(status, 0L));
+            }
+
+            finesOutstanding = sumOutstandingFines();
+            reconciledAt = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            log.warn("Dashboard statistics reconciliation failed; keeping the current counters", e);
+        }
+    }
+
+    private double sumOutstandingFines() {
+        Double sum = borrowRecordRepository.sumFinesByStatus(BorrowStatus.OVERDUE);
+        return sum != null ? sum : 0.0;
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
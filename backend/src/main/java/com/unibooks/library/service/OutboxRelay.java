@@ -0,0 +1,99 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowEvent;
+import com.unibooks.library.repository.BorrowEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delivers unpublished borrow_events rows to every {@link BorrowEventSink} in
+ * batches sorted by id (see the sink contract for why that is no global
+ * order). A batch is locked, handed to each sink and marked published in one
+ * transaction, so a failing sink rolls the batch back and it is retried on the
+ * next run.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    @Autowired
+    private BorrowEventRepository borrowEventRepository;
+
+    @Autowired
+    private List<BorrowEventSink> sinks;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedEvents;
+    private final Counter failedBatches;
+
+    public OutboxRelay(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publishedEvents = Counter.builder("library.outbox.published")
+                .description("Borrow events delivered to all sinks")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("library.outbox.failed.batches")
+                .description("Outbox batches rolled back because a sink failed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${library.outbox.relay-interval-ms:1000}",
+            fixedDelayString = "${library.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            int delivered;
+            try {
+                delivered = relayBatch();
+            } catch (RuntimeException e) {
+                failedBatches.increment();
+                log.warn("Outbox relay batch failed; it will be retried", e);
+                return;
+            }
+            if (delivered < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        Integer delivered = transactionTemplate.execute(status -> {
+            List<BorrowEvent> events = borrowEventRepository.lockUnpublished(BATCH_SIZE);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            List<BorrowEventMessage> batch = new ArrayList<>();
+            List<Long> ids = new ArrayList<>();
+            for (BorrowEvent event : events) {
+                batch.add(new BorrowEventMessage(event.getId(), event.getBorrowRecordId(), event.getUserId(),
+                        event.getBookId(), event.getFromStatus(), event.getToStatus(), event.getOccurredAt()));
+                ids.add(event.getId());
+            }
+            for (BorrowEventSink sink : sinks) {
+                try {
+                    sink.publish(batch);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Sink " + sink.getName() + " failed", e);
+                }
+            }
+            borrowEventRepository.markPublished(ids);
+            return events.size();
+        });
+        int count = delivered != null ? delivered : 0;
+        publishedEvents.increment(count);
+        return count;
+    }
+}
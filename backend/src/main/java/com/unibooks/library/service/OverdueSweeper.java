@@ -0,0 +1,32 @@
+package com.unibooks.library.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically marks past-due borrows as overdue and refreshes their fines, so
+ * read endpoints never have to write.
+ */
+@Component
+public class OverdueSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweeper.class);
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Scheduled(initialDelayString = "${library.overdue-sweep.initial-delay-ms:30000}",
+            fixedDelayString = "${library.overdue-sweep.interval-ms:300000}")
+    public void sweep() {
+        try {
+            borrowService.sweepOverdue(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Overdue sweep failed; it will be retried on the next run", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.repository.RefreshTokenRepository;
+import com.unibooks.library.util.BloomFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of revoked access tokens that have not expired yet, checked on every
+ * authenticated request. A Bloom filter answers almost every lookup on its own
+ * without locking or allocating; only a filter hit consults the exact set. The
+ * database is the source of truth: the set is reloaded from refresh_tokens at
+ * startup and periodically, which also drops expired ids and picks up
+ * revocations made by other instances.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocations.class);
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private volatile Snapshot snapshot = new Snapshot(new HashMap<>());
+
+    private static final class Snapshot {
+        private final BloomFilter filter;
+        private final int capacity;
+        // token id -> expiry in epoch millis
+        private final Map<String, Long> revoked;
+
+        Snapshot(Map<String, Long> revoked) {
+            this.capacity = Math.max(MIN_CAPACITY, revoked.size() * 2);
+            this.filter = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+            this.revoked = new ConcurrentHashMap<>(revoked);
+            revoked.keySet().forEach(filter::add);
+        }
+    }
+
+    public TokenRevocations(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        Gauge.builder("library.auth.revoked.tokens", this, revocations -> revocations.snapshot.revoked.size())
+                .description("Revoked access tokens that have not expired yet")
+                .register(meterRegistry);
+        Gauge.builder("library.auth.revoked.memory", this, revocations -> revocations.snapshot.filter.estimatedBytes())
+                .description("Estimated bytes held by the revocation filter")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        Snapshot current = snapshot;
+        return current.filter.mightContain(tokenId) && current.revoked.containsKey(tokenId);
+    }
+
+    /** Takes effect on this instance immediately; the caller has already stored the revocation. */
+    public synchronized void revoke(List<Object[]> accessTokens) {
+        Snapshot current = snapshot;
+        if (current.revoked.size() + accessTokens.size() > current.capacity) {
+            Map<String, Long> grown = new HashMap<>(current.revoked);
+            accessTokens.forEach(token -> grown.put((String) token[0], toMillis((LocalDateTime) token[1])));
+            snapshot = new Snapshot(grown);
+            return;
+        }
+        for (Object[] token : accessTokens) {
+            // the exact set first, so a lookup that passes the filter finds the id
+            current.revoked.put((String) token[0], toMillis((LocalDateTime) token[1]));
+            current.filter.add((String) token[0]);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${library.auth.revocation-reload-ms:30000}",
+            fixedDelayString = "${library.auth.revocation-reload-ms:30000}")
+    public void reload() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            refreshTokenRepository.deleteExpired(now);
+            List<Object[]> stored = refreshTokenRepository.findRevokedAccessTokens(now);
+            synchronized (this) {
+                Map<String, Long> revoked = new HashMap<>();
+                stored.forEach(token -> revoked.put((String) token[0], toMillis((LocalDateTime) token[1])));
+                // keep revocations made here after the query ran
+                long nowMillis = System.currentTimeMillis();
+                snapshot.revoked.forEach((tokenId, expiresAt) -> {
+                    if (expiresAt > nowMillis) {
+                        revoked.putIfAbsent(tokenId, expiresAt);
+                    }
+                });
+                snapshot = new Snapshot(revoked);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reload revoked tokens", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,102 @@
+package com.unibooks.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Users looked up by id or by the email in their token, so authenticated
+ * requests don't each read the users table. Principals are cached by id and
+ * the email index maps to the id. Every change to a user must call
+ * {@link #invalidate}; the TTL only bounds how long another instance's change
+ * can go unseen. Unknown ids and emails are not cached.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, UserPrincipal> byId;
+    private final Cache<String, Long> idsByEmail;
+
+    public UserPrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${library.users.cache.max-entries:100000}") long maxEntries,
+                              @Value("${library.users.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.userRepository = userRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "userPrincipals");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "userPrincipalEmails");
+    }
+
+    public Optional<UserPrincipal> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.get(id, key -> userRepository.findById(key).map(UserPrincipal::of).orElse(null)));
+    }
+
+    public Optional<UserPrincipal> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        Long id = idsByEmail.get(email, key -> userRepository.findByEmail(key)
+                .map(user -> {
+                    byId.put(user.getId(), UserPrincipal.of(user));
+                    return user.getId();
+                })
+                .orElse(null));
+        UserPrincipal principal = id == null ? null : findById(id).orElse(null);
+        // the email moved to another account since it was indexed (emails compare case-insensitively in MySQL)
+        if (principal != null && !principal.getEmail().equalsIgnoreCase(email)) {
+            idsByEmail.invalidate(email);
+            principal = userRepository.findByEmail(email).map(UserPrincipal::of).orElse(null);
+        }
+        return Optional.ofNullable(principal);
+    }
+
+    /**
+     * Drops the user and the given emails, old and new, now and, inside a
+     * transaction, again once it completes so values loaded before the commit
+     * are dropped too.
+     */
+    public void invalidate(Long id, String... emails) {
+        evict(id, emails);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id, emails);
+                }
+            });
+        }
+    }
+
+    private void evict(Long id, String... emails) {
+        if (id != null) {
+            byId.invalidate(id);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                idsByEmail.invalidate(email);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.UserPageResponse;
+import com.unibooks.library.dto.UserSearchCriteria;
+import com.unibooks.library.dto.UserSummary;
+import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.repository.UserSort;
+import com.unibooks.library.util.CursorCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * The user directory: keyset pages over the users table, filtered by role and
+ * by name, email or mobile prefix. Every sort has a matching (column, id) or
+ * (role, column, id) index.
+ */
+@Service
+public class UserService {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsersPage(UserSearchCriteria criteria, String sortParam, String direction,
+                                         String cursor, Integer size) {
+        UserSort sort = UserSort.fromParam(sortParam);
+        boolean ascending = !"desc".equalsIgnoreCase(direction);
+
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (size != null) {
+            if (size <= 0) {
+                throw new RuntimeException("Page size must be positive");
+            }
+            pageSize = Math.min(size, MAX_PAGE_SIZE);
+        }
+
+        Comparable<?> lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = CursorCodec.decode(cursor, 4);
+            if (!parts[0].equals(sort.name()) || !parts[1].equals(ascending ? "asc" : "desc")) {
+                throw new RuntimeException("Cursor does not match the requested sort order");
+            }
+            try {
+                lastId = Long.valueOf(parts[2]);
+                lastValue = sort.parseValue(parts[3]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        List<UserSummary> users = userRepository.searchPageAfter(criteria, sort, ascending, lastValue, lastId, pageSize + 1);
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            UserSummary last = users.get(users.size() - 1);
+            nextCursor = CursorCodec.encode(sort.name(), ascending ? "asc" : "desc",
+                    String.valueOf(last.getId()), String.valueOf(sort.extract(last)));
+        }
+        return new UserPageResponse(users, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,409 @@
+package com.unibooks.library.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item-item co-occurrence counts for "readers also borrowed". Each borrow is
+ * paired with the borrower's last {@code historyWindow} distinct books, and each
+ * book keeps at most {@code maxNeighbours} co-borrowed books, pruned to the
+ * stronger half when full. Everything is held in primitive arrays indexed by a
+ * dense book slot: a book's neighbours are one open-addressing {@code int[]}
+ * holding (slot + 1, count) pairs, so no per-pair objects are allocated.
+ */
+public class CoBorrowMatrix {
+
+    public static final int DEFAULT_HISTORY_WINDOW = 16;
+    public static final int DEFAULT_MAX_NEIGHBOURS = 48;
+
+    private static final int MIN_ROW_CAPACITY = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final int historyWindow;
+    private final int maxNeighbours;
+    private final int maxRowCapacity;
+
+    private final LongIntHashMap bookSlots = new LongIntHashMap();
+    private long[] bookIds = new long[1024];
+    private int[] borrowCounts = new int[1024];
+    private int[][] neighbours = new int[1024][];
+    private int[] neighbourCounts = new int[1024];
+    private int bookCount;
+
+    private final LongIntHashMap userSlots = new LongIntHashMap();
+    private int[] history;
+    private int[] historyLengths = new int[1024];
+    private int userCount;
+
+    private long pairCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CoBorrowMatrix() {
+        this(DEFAULT_HISTORY_WINDOW, DEFAULT_MAX_NEIGHBOURS);
+    }
+
+    public CoBorrowMatrix(int historyWindow, int maxNeighbours) {
+        if (historyWindow < 1 || maxNeighbours < 2) {
+            throw new IllegalArgumentException("historyWindow must be at least 1 and maxNeighbours at least 2");
+        }
+        this.historyWindow = historyWindow;
+        this.maxNeighbours = maxNeighbours;
+        this.maxRowCapacity = capacityFor(maxNeighbours);
+        this.history = new int[1024 * historyWindow];
+    }
+
+    /**
+     * Records that a user borrowed a book. Borrowing a book that is still in the
+     * user's recent window is ignored, so renewals and re-borrows don't inflate
+     * the counts.
+     */
+    public void recordBorrow(long userId, long bookId) {
+        if (userId <= 0 || bookId <= 0) {
+            throw new IllegalArgumentException("ids must be positive");
+        }
+        lock.writeLock().lock();
+        try {
+            int book = bookSlot(bookId);
+            int user = userSlot(userId);
+            int seen = historyLengths[user];
+            int recent = Math.min(seen, historyWindow);
+            int base = user * historyWindow;
+            for (int i = 0; i < recent; i++) {
+                if (history[base + i] == book) {
+                    return;
+                }
+            }
+
+            borrowCounts[book]++;
+            for (int i = 0; i < recent; i++) {
+                int other = history[base + i];
+                increment(book, other);
+                increment(other, book);
+            }
+            history[base + seen % historyWindow] = book;
+            historyLengths[user] = seen + 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Books most often co-borrowed with {@code bookId}, ranked by cosine
+     * similarity of their borrower sets: co(a, b) / sqrt(borrows(a) * borrows(b)).
+     */
+    public List<Long> similar(long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            int book = bookSlots.get(bookId);
+            if (book < 0 || limit <= 0 || neighbours[book] == null) {
+                return new ArrayList<>();
+            }
+
+            int[] row = neighbours[book];
+            int[] bestSlots = new int[limit];
+            double[] bestScores = new double[limit];
+            int[] bestCounts = new int[limit];
+            int found = 0;
+            for (int i = 0; i < row.length; i += 2) {
+                if (row[i] == 0) {
+                    continue;
+                }
+                int other = row[i] - 1;
+                int count = row[i + 1];
+                double score = count / Math.sqrt((double) borrowCounts[book] * borrowCounts[other]);
+
+                // insertion into a small sorted buffer; rows hold at most maxNeighbours entries
+                int position = found;
+                while (position > 0 && ranksBefore(score, count, other, bestScores[position - 1],
+                        bestCounts[position - 1], bestSlots[position - 1])) {
+                    position--;
+                }
+                if (position >= limit) {
+                    continue;
+                }
+                int shift = Math.min(found, limit - 1) - position;
+                System.arraycopy(bestSlots, position, bestSlots, position + 1, shift);
+                System.arraycopy(bestScores, position, bestScores, position + 1, shift);
+                System.arraycopy(bestCounts, position, bestCounts, position + 1, shift);
+                bestSlots[position] = other;
+                bestScores[position] = score;
+                bestCounts[position] = count;
+                found = Math.min(found + 1, limit);
+            }
+
+            List<Long> ids = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                ids.add(bookIds[bestSlots[i]]);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getCoBorrowCount(long bookId, long otherBookId) {
+        lock.readLock().lock();
+        try {
+            int book = bookSlots.get(bookId);
+            int other = bookSlots.get(otherBookId);
+            if (book < 0 || other < 0 || neighbours[book] == null) {
+                return 0;
+            }
+            int[] row = neighbours[book];
+            int index = find(row, other);
+            return row[index] == 0 ? 0 : row[index + 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getBookCount() {
+        lock.readLock().lock();
+        try {
+            return bookCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return userCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getPairCount() {
+        lock.readLock().lock();
+        try {
+            return pairCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Heap used by the matrix, counting array headers and compressed references. */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long rows = 0;
+            for (int i = 0; i < bookCount; i++) {
+                if (neighbours[i] != null) {
+                    rows += ARRAY_HEADER_BYTES + 4L * neighbours[i].length;
+                }
+            }
+            return bookSlots.estimatedBytes() + userSlots.estimatedBytes()
+                    + 4 * ARRAY_HEADER_BYTES + 8L * bookIds.length + 4L * borrowCounts.length
+                    + 4L * neighbours.length + 4L * neighbourCounts.length + rows
+                    + 2 * ARRAY_HEADER_BYTES + 4L * history.length + 4L * historyLengths.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean ranksBefore(double score, int count, int slot, double otherScore, int otherCount, int otherSlot) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        if (count != otherCount) {
+            return count > otherCount;
+        }
+        return slot < otherSlot;
+    }
+
+    private int bookSlot(long bookId) {
+        int slot = bookSlots.get(bookId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (bookCount == bookIds.length) {
+            int grown = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, grown);
+            borrowCounts = Arrays.copyOf(borrowCounts, grown);
+            neighbours = Arrays.copyOf(neighbours, grown);
+            neighbourCounts = Arrays.copyOf(neighbourCounts, grown);
+        }
+        slot = bookCount++;
+        bookIds[slot] = bookId;
+        bookSlots.put(bookId, slot);
+        return slot;
+    }
+
+    private int userSlot(long userId) {
+        int slot = userSlots.get(userId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (userCount == historyLengths.length) {
+            historyLengths = Arrays.copyOf(historyLengths, historyLengths.length * 2);
+            history = Arrays.copyOf(history, historyLengths.length * historyWindow);
+        }
+        slot = userCount++;
+        userSlots.put(userId, slot);
+        return slot;
+    }
+
+    private void increment(int book, int other) {
+        int[] row = neighbours[book];
+        if (row == null) {
+            row = new int[2 * MIN_ROW_CAPACITY];
+            neighbours[book] = row;
+        }
+        int index = find(row, other);
+        if (row[index] != 0) {
+            row[index + 1]++;
+            return;
+        }
+
+        if (neighbourCounts[book] == maxNeighbours) {
+            prune(book);
+            row = neighbours[book];
+            index = find(row, other);
+        } else if ((neighbourCounts[book] + 1) * 4 > row.length / 2 * 3) {
+            rehash(book, Math.min(row.length, maxRowCapacity));
+            row = neighbours[book];
+            index = find(row, other);
+        }
+        row[index] = other + 1;
+        row[index + 1] = 1;
+        neighbourCounts[book]++;
+        pairCount++;
+    }
+
+    // keeps the stronger half of a full row; the newcomer is inserted afterwards
+    private void prune(int book) {
+        int[] row = neighbours[book];
+        int[] counts = new int[neighbourCounts[book]];
+        int n = 0;
+        for (int i = 0; i < row.length; i += 2) {
+            if (row[i] != 0) {
+                counts[n++] = row[i + 1];
+            }
+        }
+        Arrays.sort(counts);
+        int keep = maxNeighbours / 2;
+        int threshold = counts[counts.length - keep];
+        // entries above the threshold always survive; ties at the threshold fill what is left
+        int tiesToKeep = keep;
+        for (int count : counts) {
+            if (count > threshold) {
+                tiesToKeep--;
+            }
+        }
+
+        int[] pruned = new int[row.length];
+        int kept = 0;
+        for (int i = 0; i < row.length; i += 2) {
+            if (row[i] == 0) {
+                continue;
+            }
+            int count = row[i + 1];
+            if (count > threshold || (count == threshold && tiesToKeep-- > 0)) {
+                int index = find(pruned, row[i] - 1);
+                pruned[index] = row[i];
+                pruned[index + 1] = count;
+                kept++;
+            }
+        }
+        pairCount -= neighbourCounts[book] - kept;
+        neighbourCounts[book] = kept;
+        neighbours[book] = pruned;
+    }
+
+    private void rehash(int book, int capacity) {
+        int[] row = neighbours[book];
+        int[] grown = new int[2 * capacity];
+        for (int i = 0; i < row.length; i += 2) {
+            if (row[i] != 0) {
+                int index = find(grown, row[i] - 1);
+                grown[index] = row[i];
+                grown[index + 1] = row[i + 1];
+            }
+        }
+        neighbours[book] = grown;
+    }
+
+    // linear probing over (slot + 1, count) pairs; returns the pair's index or the empty pair it would occupy
+    private static int find(int[] row, int other) {
+        int mask = row.length / 2 - 1;
+        int position = mix(other) & mask;
+        while (row[2 * position] != 0 && row[2 * position] != other + 1) {
+            position = (position + 1) & mask;
+        }
+        return 2 * position;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_ROW_CAPACITY;
+        while (entries * 4 > capacity * 3) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    /** Open-addressing long to int map for positive keys; 0 marks an empty slot. */
+    private static final class LongIntHashMap {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int position = mix(key) & mask;
+            while (keys[position] != 0) {
+                if (keys[position] == key) {
+                    return values[position];
+                }
+                position = (position + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int position = mix(key) & mask;
+            while (keys[position] != 0 && keys[position] != key) {
+                position = (position + 1) & mask;
+            }
+            if (keys[position] == 0) {
+                size++;
+            }
+            keys[position] = key;
+            values[position] = value;
+        }
+
+        long estimatedBytes() {
+            return 2 * ARRAY_HEADER_BYTES + 12L * keys.length;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
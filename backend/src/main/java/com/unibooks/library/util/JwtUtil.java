@@ -1,64 +1,168 @@
 package com.unibooks.library.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies short-lived access tokens. Each token carries an id so it
+ * can be revoked before it expires. The signing key and parser are built once,
+ * and verified claims are cached by SHA-256 digest of the token until the token
+ * expires, so a client's repeated requests pay for one signature check.
+ */
 @Component
 public class JwtUtil {
-    
+
     private static final String SECRET = "mySecretKeyForJWTTokenGenerationThatIsLongEnough12345";
-    private static final long EXPIRATION_TIME = 86400000; // 24 hours
-    
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    private static final long MAX_CACHED_TOKENS = 50_000;
+
+    private final long expirationMillis;
+
+    private final Key signingKey;
+    private final JwtParser parser;
+
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_TOKENS)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+                @Override
+                public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                    return expireAfterCreate(digest, token, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    public static final class VerifiedToken {
+        private final String tokenId;
+        private final String email;
+        private final String role;
+        private final long expiresAt;
+
+        VerifiedToken(String tokenId, String email, String role, long expiresAt) {
+            this.tokenId = tokenId;
+            this.email = email;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
     }
-    
-    public String generateToken(String email, String role) {
+
+    @Autowired
+    public JwtUtil(@Value("${jwt.expiration:900000}") long expirationMillis) {
+        this(SECRET, expirationMillis);
+    }
+
+    // lets tests and benchmarks sign with a key they know
+    JwtUtil(String secret, long expirationMillis) {
+        this.expirationMillis = expirationMillis;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    public String generateToken(String tokenId, String email, String role, Date issuedAt) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
-        return createToken(claims, email);
-    }
-    
-    private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setId(tokenId)
+                .setSubject(email)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + expirationMillis))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
-    public String extractEmail(String token) {
-        return extractClaims(token).getSubject();
-    }
-    
-    public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
-    }
-    
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+
+    /**
+     * Returns the token's subject and role, or null when the token is malformed,
+     * wrongly signed or expired.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached.expiresAt > System.currentTimeMillis() ? cached : null;
+        }
+
+        VerifiedToken verified = parse(token);
+        if (verified != null) {
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
     }
-    
-    public boolean validateToken(String token, String email) {
-        final String extractedEmail = extractEmail(token);
-        return (extractedEmail.equals(email) && !isTokenExpired(token));
+
+    VerifiedToken parse(String token) {
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            // the parser already rejects expired tokens; tokens without an id or expiry are not ours
+            if (claims.getId() == null || claims.getSubject() == null || claims.get("role") == null
+                    || claims.getExpiration() == null) {
+                return null;
+            }
+            return new VerifiedToken(claims.getId(), claims.getSubject(), claims.get("role", String.class),
+                    claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
-    
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
     }
 }
@@ -0,0 +1,335 @@
+package com.unibooks.library.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie mapping normalized keys to scored suggestions. Every node caches the
+ * best {@code topK} entries of its subtree, so a lookup only walks the prefix.
+ */
+public class SuggestionTrie {
+
+    public static final class Entry {
+        private final String key;
+        private final String display;
+        private final long score;
+
+        Entry(String key, String display, long score) {
+            this.key = key;
+            this.display = display;
+            this.score = score;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getDisplay() {
+            return display;
+        }
+
+        public long getScore() {
+            return score;
+        }
+    }
+
+    public static final Comparator<Entry> RANKING = Comparator
+            .comparingLong(Entry::getScore).reversed()
+            .thenComparing(Entry::getKey);
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Entry terminal;
+        private Entry[] top = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private final int topK;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node("");
+    private int nodeCount = 1;
+    private int entryCount;
+    private long labelChars;
+    private long entryChars;
+
+    public SuggestionTrie(int topK) {
+        this.topK = topK;
+    }
+
+    public void put(String key, String display, long score) {
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            insert(root, key, new Entry(key, display, score), true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        if (key.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            delete(root, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole trie with the given entries, computing the cached
+     * rankings once at the end instead of after every insert.
+     */
+    public void rebuild(Map<String, Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            nodeCount = 1;
+            entryCount = 0;
+            labelChars = 0;
+            entryChars = 0;
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (!entry.getKey().isEmpty()) {
+                    insert(root, entry.getKey(), entry.getValue(), false);
+                }
+            }
+            recomputeAll(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static Entry entry(String key, String display, long score) {
+        return new Entry(key, display, score);
+    }
+
+    public List<Entry> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < prefix.length()) {
+                Node child = findChild(node, prefix.charAt(matched));
+                if (child == null) {
+                    return new ArrayList<>();
+                }
+                int common = commonPrefix(child.label, 0, prefix, matched);
+                if (matched + common == prefix.length()) {
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return new ArrayList<>();
+                }
+                matched += common;
+                node = child;
+            }
+            int count = Math.min(limit, node.top.length);
+            return new ArrayList<>(Arrays.asList(node.top).subList(0, count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.readLock().lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough retained size of nodes, entries, their arrays and strings, assuming
+     * compressed oops and compact strings.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long perNode = 32 + 16 + 16 + 4L * topK + 40;
+            long perEntry = 32 + 40 + 40;
+            return nodeCount * perNode + 4L * (nodeCount - 1) + labelChars
+                    + entryCount * perEntry + entryChars;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(Node node, String key, Entry entry, boolean maintainRankings) {
+        if (key.isEmpty()) {
+            if (node.terminal == null) {
+                entryCount++;
+            } else {
+                entryChars -= charsOf(node.terminal);
+            }
+            entryChars += charsOf(entry);
+            node.terminal = entry;
+        } else {
+            Node child = findChild(node, key.charAt(0));
+            if (child == null) {
+                child = new Node(key);
+                nodeCount++;
+                labelChars += key.length();
+                addChild(node, child);
+                insert(child, "", entry, maintainRankings);
+            } else {
+                int common = commonPrefix(child.label, 0, key, 0);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+                insert(child, key.substring(common), entry, maintainRankings);
+            }
+        }
+        if (maintainRankings) {
+            recompute(node);
+        }
+    }
+
+    private boolean delete(Node node, String key) {
+        boolean removed;
+        if (key.isEmpty()) {
+            removed = node.terminal != null;
+            if (removed) {
+                entryChars -= charsOf(node.terminal);
+                node.terminal = null;
+                entryCount--;
+            }
+        } else {
+            Node child = findChild(node, key.charAt(0));
+            if (child == null || !key.startsWith(child.label)) {
+                return false;
+            }
+            removed = delete(child, key.substring(child.label.length()));
+            if (removed) {
+                if (child.terminal == null && child.children.length == 0) {
+                    removeChild(node, child);
+                } else if (child.terminal == null && child.children.length == 1) {
+                    merge(child);
+                }
+            }
+        }
+        if (removed) {
+            recompute(node);
+        }
+        return removed;
+    }
+
+    private Node split(Node parent, Node child, int at) {
+        int index = childIndex(parent.children, child.label.charAt(0));
+        Node middle = new Node(child.label.substring(0, at));
+        child.label = child.label.substring(at);
+        middle.children = new Node[] {child};
+        middle.top = child.top;
+        parent.children[index] = middle;
+        nodeCount++;
+        return middle;
+    }
+
+    private void merge(Node node) {
+        Node only = node.children[0];
+        node.label = node.label + only.label;
+        node.children = only.children;
+        node.terminal = only.terminal;
+        node.top = only.top;
+        nodeCount--;
+    }
+
+    private void recomputeAll(Node node) {
+        for (Node child : node.children) {
+            recomputeAll(child);
+        }
+        recompute(node);
+    }
+
+    private void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.terminal != null) {
+            candidates.add(node.terminal);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+        int size = Math.min(topK, candidates.size());
+        node.top = candidates.subList(0, size).toArray(NO_ENTRIES);
+    }
+
+    private static Node findChild(Node node, char first) {
+        int index = childIndex(node.children, first);
+        return index >= 0 ? node.children[index] : null;
+    }
+
+    private static int childIndex(Node[] children, char first) {
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char candidate = children[mid].label.charAt(0);
+            if (candidate < first) {
+                low = mid + 1;
+            } else if (candidate > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static void addChild(Node parent, Node child) {
+        int insertAt = -childIndex(parent.children, child.label.charAt(0)) - 1;
+        Node[] children = new Node[parent.children.length + 1];
+        System.arraycopy(parent.children, 0, children, 0, insertAt);
+        children[insertAt] = child;
+        System.arraycopy(parent.children, insertAt, children, insertAt + 1, parent.children.length - insertAt);
+        parent.children = children;
+    }
+
+    private void removeChild(Node parent, Node child) {
+        int index = childIndex(parent.children, child.label.charAt(0));
+        Node[] children = new Node[parent.children.length - 1];
+        System.arraycopy(parent.children, 0, children, 0, index);
+        System.arraycopy(parent.children, index + 1, children, index, parent.children.length - index - 1);
+        parent.children = children.length == 0 ? NO_CHILDREN : children;
+        nodeCount--;
+        labelChars -= child.label.length();
+    }
+
+    private static long charsOf(Entry entry) {
+        return entry.key.length() + entry.display.length();
+    }
+
+    private static int commonPrefix(String label, int labelStart, String key, int keyStart) {
+        int length = 0;
+        while (labelStart + length < label.length() && keyStart + length < key.length()
+                && label.charAt(labelStart + length) == key.charAt(keyStart + length)) {
+            length++;
+        }
+        return length;
+    }
+}
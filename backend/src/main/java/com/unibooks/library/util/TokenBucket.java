@@ -0,0 +1,91 @@
+package com.unibooks.library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket whose whole state is one long, updated with compare-and-set so
+ * concurrent requests never block each other. The high bits hold the time of
+ * the last refill in milliseconds, the low bits the tokens left. Tokens are
+ * counted in fixed-point units chosen so that every elapsed millisecond adds a
+ * whole number of units, which keeps refills exact without floating point.
+ */
+public class TokenBucket {
+
+    private static final int UNIT_BITS = 24;
+    private static final long UNIT_MASK = (1L << UNIT_BITS) - 1;
+    private static final long MAX_MILLIS = (1L << (Long.SIZE - UNIT_BITS)) - 1;
+
+    private final long unitsPerToken;
+    private final long unitsPerMilli;
+    private final long capacityUnits;
+    private final long millisToFill;
+
+    /**
+     * A bucket refilled with {@code tokens} every {@code periodMillis}, holding
+     * at most {@code burst} tokens.
+     */
+    public TokenBucket(long tokens, long periodMillis, long burst) {
+        if (tokens < 1 || periodMillis < 1 || burst < 1) {
+            throw new IllegalArgumentException("tokens, period and burst must be positive");
+        }
+        long divisor = gcd(tokens, periodMillis);
+        this.unitsPerToken = periodMillis / divisor;
+        this.unitsPerMilli = tokens / divisor;
+        if (burst > UNIT_MASK / unitsPerToken) {
+            throw new IllegalArgumentException("burst of " + burst + " tokens per " + periodMillis + " ms is too large");
+        }
+        this.capacityUnits = burst * unitsPerToken;
+        this.millisToFill = (capacityUnits + unitsPerMilli - 1) / unitsPerMilli;
+    }
+
+    /** State for a bucket that starts full at {@code nowMillis}. */
+    public AtomicLong newState(long nowMillis) {
+        return new AtomicLong(pack(nowMillis, capacityUnits));
+    }
+
+    /**
+     * Takes one token. Returns 0 when a token was taken, otherwise how many
+     * milliseconds until one will be available. A refused attempt writes
+     * nothing, so it costs no more than the read.
+     */
+    public long tryAcquire(AtomicLong state, long nowMillis) {
+        if (nowMillis < 0 || nowMillis > MAX_MILLIS) {
+            throw new IllegalArgumentException("time out of range: " + nowMillis);
+        }
+        while (true) {
+            long current = state.get();
+            long last = current >>> UNIT_BITS;
+            long units = current & UNIT_MASK;
+            if (nowMillis > last) {
+                // capping elapsed time first keeps the multiplication from overflowing
+                long elapsed = Math.min(nowMillis - last, millisToFill);
+                units = Math.min(capacityUnits, units + elapsed * unitsPerMilli);
+                last = nowMillis;
+            }
+            if (units < unitsPerToken) {
+                return (unitsPerToken - units + unitsPerMilli - 1) / unitsPerMilli;
+            }
+            if (state.compareAndSet(current, pack(last, units - unitsPerToken))) {
+                return 0;
+            }
+        }
+    }
+
+    /** How long an untouched bucket takes to fill up again; idle state older than this can be dropped. */
+    public long getMillisToFill() {
+        return millisToFill;
+    }
+
+    private static long pack(long millis, long units) {
+        return (millis << UNIT_BITS) | units;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,100 @@
+package com.unibooks.library.controller;
+
+import com.unibooks.library.dto.HoldRequest;
+import com.unibooks.library.dto.HoldResponse;
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.model.User;
+import com.unibooks.library.service.HoldService;
+import com.unibooks.library.service.UserPrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HoldControllerTest {
+
+    private static final long READER_ID = 7L;
+    private static final long OTHER_READER_ID = 8L;
+
+    private final HoldService holdService = mock(HoldService.class);
+    private final UserPrincipalCache userPrincipalCache = mock(UserPrincipalCache.class);
+    private final HoldController controller = new HoldController(holdService, userPrincipalCache);
+
+    private final Authentication reader = authentication("reader@campus.edu", "USER");
+    private final Authentication librarian = authentication("librarian@campus.edu", "LIBRARIAN");
+
+    @BeforeEach
+    void setUp() {
+        when(userPrincipalCache.findByEmail("reader@campus.edu")).thenReturn(Optional.of(
+                new UserPrincipal(READER_ID, "reader@campus.edu", "Reader", "Other", "0000000000", User.Role.USER)));
+    }
+
+    @Test
+    void readersPlaceHoldsForThemselvesWhateverTheBodySays() {
+        HoldRequest request = new HoldRequest(OTHER_READER_ID, 3L, null);
+        controller.placeHold(request, reader);
+
+        assertEquals(READER_ID, request.getUserId());
+        verify(holdService).placeHold(request);
+    }
+
+    @Test
+    void staffPlaceHoldsForTheUserInTheBody() {
+        HoldRequest request = new HoldRequest(OTHER_READER_ID, 3L, 1);
+        controller.placeHold(request, librarian);
+
+        assertEquals(OTHER_READER_ID, request.getUserId());
+        verify(holdService).placeHold(request);
+    }
+
+    @Test
+    void readersCannotListAnotherUsersHolds() {
+        ResponseEntity<?> response = controller.getUserHolds(OTHER_READER_ID, reader);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        verify(holdService, never()).getUserHolds(any());
+    }
+
+    @Test
+    void readersAndStaffCanListTheReadersHolds() {
+        when(holdService.getUserHolds(READER_ID)).thenReturn(List.of(new HoldResponse()));
+
+        assertEquals(HttpStatus.OK, controller.getUserHolds(READER_ID, reader).getStatusCode());
+        assertEquals(HttpStatus.OK, controller.getUserHolds(READER_ID, librarian).getStatusCode());
+    }
+
+    @Test
+    void readersCannotCancelAnotherUsersHold() {
+        when(holdService.cancelHold(5L, READER_ID)).thenThrow(new AccessDeniedException("You can only cancel your own holds"));
+
+        ResponseEntity<?> response = controller.cancelHold(5L, reader);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+    }
+
+    @Test
+    void staffCancelWithoutAnOwnerCheck() {
+        when(holdService.cancelHold(5L, null)).thenReturn(new HoldResponse());
+
+        assertEquals(HttpStatus.OK, controller.cancelHold(5L, librarian).getStatusCode());
+        verify(holdService).cancelHold(5L, null);
+    }
+
+    private static Authentication authentication(String email, String role) {
+        return new UsernamePasswordAuthenticationToken(email, null, List.of(new SimpleGrantedAuthority(role)));
+    }
+}
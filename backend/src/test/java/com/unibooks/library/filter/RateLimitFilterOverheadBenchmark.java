@@ -0,0 +1,99 @@
+package com.unibooks.library.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Per-request cost of the rate limiter. Not picked up by the default test run;
+ * run it explicitly with {@code mvn test -Dtest=RateLimitFilterOverheadBenchmark}.
+ * Limits are set high enough that every request is admitted, so the numbers are
+ * the overhead paid by well-behaved clients.
+ */
+class RateLimitFilterOverheadBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+    private static final int CLIENTS = 10_000;
+    private static final int THREADS = 4;
+
+    private final RateLimitFilter filter = new RateLimitFilter(new SimpleMeterRegistry(), 300, 300, 300, 300, 300);
+
+    @Test
+    void measuresFilterOverhead() throws Exception {
+        List<MockHttpServletRequest> unlimited = requests("GET", "/api/books");
+        List<MockHttpServletRequest> limited = requests("POST", "/api/auth/login");
+        // spread over many clients so each stays under its own limit
+        RateLimitFilter roomy = new RateLimitFilter(new SimpleMeterRegistry(), 300_000, 300_000, 300_000, 300_000, 300_000);
+
+        run(filter, unlimited, WARMUP);
+        long unlimitedNanos = run(filter, unlimited, ITERATIONS);
+        run(roomy, limited, WARMUP);
+        long limitedNanos = run(roomy, limited, ITERATIONS);
+        long contendedNanos = runConcurrently(roomy, limited);
+
+        System.out.printf("unlimited route: %.0f ns per request%n", (double) unlimitedNanos / ITERATIONS);
+        System.out.printf("limited route, %,d clients: %.0f ns per request%n", CLIENTS, (double) limitedNanos / ITERATIONS);
+        System.out.printf("limited route, %d threads: %.0f ns per request%n", THREADS,
+                (double) contendedNanos / ITERATIONS);
+    }
+
+    private static List<MockHttpServletRequest> requests(String method, String path) {
+        List<MockHttpServletRequest> requests = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+            request.setRemoteAddr("10.0." + (i / 256) + "." + (i % 256));
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static long run(RateLimitFilter filter, List<MockHttpServletRequest> requests, int iterations) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            MockHttpServletRequest request = requests.get(i % requests.size());
+            // OncePerRequestFilter marks the request as filtered, so clear it between iterations
+            request.clearAttributes();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runConcurrently(RateLimitFilter filter, List<MockHttpServletRequest> requests) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<MockHttpServletRequest> own = requests("POST", "/api/auth/login");
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    run(filter, own, ITERATIONS / THREADS);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,67 @@
+package com.unibooks.library.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimitFilterTest {
+
+    private static final String CAMPUS_NAT = "203.0.113.7";
+
+    // 2 logins per email and IP, 5 per IP
+    private final RateLimitFilter filter = new RateLimitFilter(new SimpleMeterRegistry(), 2, 5, 2, 5, 2);
+
+    @Test
+    void readersBehindOneAddressHaveTheirOwnLoginBuckets() throws Exception {
+        assertEquals(200, login("alice@campus.edu", CAMPUS_NAT).getStatus());
+        assertEquals(200, login("alice@campus.edu", CAMPUS_NAT).getStatus());
+        assertEquals(429, login("alice@campus.edu", CAMPUS_NAT).getStatus());
+
+        assertEquals(200, login("bob@campus.edu", CAMPUS_NAT).getStatus());
+    }
+
+    @Test
+    void emailsAreNormalizedBeforeKeying() throws Exception {
+        assertEquals(200, login("alice@campus.edu", CAMPUS_NAT).getStatus());
+        assertEquals(200, login("  Alice@Campus.EDU ", CAMPUS_NAT).getStatus());
+        assertEquals(429, login("ALICE@campus.edu", CAMPUS_NAT).getStatus());
+    }
+
+    @Test
+    void eachAddressHasALooserCeilingAcrossEmails() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("reader" + i + "@campus.edu", CAMPUS_NAT).getStatus());
+        }
+        assertEquals(429, login("reader5@campus.edu", CAMPUS_NAT).getStatus());
+        assertEquals(200, login("reader5@campus.edu", "198.51.100.1").getStatus());
+    }
+
+    @Test
+    void controllerStillReadsTheBody() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("alice@campus.edu", CAMPUS_NAT), new MockHttpServletResponse(), chain);
+
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals("{\"email\":\"alice@campus.edu\",\"password\":\"secret\"}", body);
+    }
+
+    private MockHttpServletResponse login(String email, String ip) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(email, ip), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String email, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,132 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.BorrowRow;
+import com.unibooks.library.dto.BorrowSearchCriteria;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BorrowRecordRepositoryImplTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 10, 9, 0);
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        user = saveUser();
+        book = saveBook();
+    }
+
+    @Test
+    void severalStatusesPageNewestFirstAcrossTheirSeeks() {
+        List<BorrowRecord> matching = new ArrayList<>();
+        BorrowStatus[] statuses = {BorrowStatus.BORROWED, BorrowStatus.OVERDUE, BorrowStatus.RETURNED};
+        for (int i = 0; i < 9; i++) {
+            // two records share each borrow date, so the id breaks ties
+            BorrowRecord record = loan(START.plusHours(i / 2), statuses[i % 3], 0.0);
+            if (record.getStatus() != BorrowStatus.RETURNED) {
+                matching.add(record);
+            }
+        }
+        entityManager.flush();
+
+        List<Long> expected = matching.stream()
+                .sorted(Comparator.comparing(BorrowRecord::getBorrowDate).thenComparing(BorrowRecord::getId).reversed())
+                .map(BorrowRecord::getId)
+                .toList();
+        assertEquals(expected, allIds(criteria(List.of(BorrowStatus.BORROWED, BorrowStatus.OVERDUE), null)));
+    }
+
+    @Test
+    void hasFineMatchesRecordsWithAPositiveFine() {
+        BorrowRecord fined = loan(START, BorrowStatus.OVERDUE, 3.0);
+        loan(START.plusHours(1), BorrowStatus.OVERDUE, 0.0);
+        loan(START.plusHours(2), BorrowStatus.RETURNED, null);
+        entityManager.flush();
+
+        assertEquals(List.of(fined.getId()), allIds(criteria(null, true)));
+    }
+
+    private BorrowSearchCriteria criteria(List<BorrowStatus> statuses, Boolean hasFine) {
+        BorrowSearchCriteria criteria = new BorrowSearchCriteria();
+        criteria.setUserId(user.getId());
+        criteria.setStatus(statuses);
+        criteria.setHasFine(hasFine);
+        return criteria;
+    }
+
+    private List<Long> allIds(BorrowSearchCriteria criteria) {
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime lastBorrowDate = null;
+        Long lastId = null;
+        while (true) {
+            List<BorrowRow> page = borrowRecordRepository.searchPageAfter(criteria, lastBorrowDate, lastId, 2);
+            if (page.isEmpty()) {
+                return ids;
+            }
+            for (BorrowRow row : page) {
+                ids.add(row.getId());
+            }
+            BorrowRow last = page.get(page.size() - 1);
+            lastBorrowDate = last.getBorrowDate();
+            lastId = last.getId();
+        }
+    }
+
+    private BorrowRecord loan(LocalDateTime borrowDate, BorrowStatus status, Double fine) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(borrowDate);
+        record.setDueDate(borrowDate.plusDays(14));
+        record.setStatus(status);
+        record.setFineAmount(fine);
+        return entityManager.persist(record);
+    }
+
+    private User saveUser() {
+        User reader = new User();
+        reader.setName("Search Reader");
+        reader.setEmail(UUID.randomUUID() + "@test.local");
+        reader.setGender("Other");
+        reader.setMobile("0000000000");
+        reader.setPassword("not-a-real-hash");
+        return entityManager.persist(reader);
+    }
+
+    private Book saveBook() {
+        Book searchBook = new Book();
+        searchBook.setTitle("Search Title");
+        searchBook.setAuthor("Test Author");
+        searchBook.setIsbn("TEST-" + UUID.randomUUID());
+        searchBook.setCategory("Search Test");
+        searchBook.setTotalCopies(1);
+        searchBook.setAvailableCopies(1);
+        return entityManager.persist(searchBook);
+    }
+}
@@ -0,0 +1,160 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowEvent;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.BorrowRollup;
+import com.unibooks.library.model.BorrowRollup.Granularity;
+import com.unibooks.library.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// each test runs in a transaction that is rolled back, so clearing the rollups only affects the test
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BorrowRollupRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 10, 9, 0);
+
+    private final String category = "Rollup Test " + UUID.randomUUID();
+    private final List<Long> eventIds = new ArrayList<>();
+
+    @Autowired
+    private BorrowRollupRepository borrowRollupRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User user;
+    private Book book;
+
+    @Test
+    void replayingEventsMatchesRebuildingFromHistory() {
+        user = saveUser();
+        book = saveBook();
+
+        // returned on time
+        BorrowRecord onTime = loan(START, START.plusDays(14), BorrowStatus.RETURNED);
+        onTime.setReturnDate(START.plusDays(3));
+        event(onTime, BorrowStatus.PENDING, BorrowStatus.BORROWED, START);
+        event(onTime, BorrowStatus.BORROWED, BorrowStatus.RETURNED, START.plusDays(3));
+
+        // swept to OVERDUE a day after its due date, then returned late
+        BorrowRecord sweptThenReturned = loan(START.plusHours(1), START.plusDays(14), BorrowStatus.RETURNED);
+        sweptThenReturned.setReturnDate(START.plusDays(20));
+        event(sweptThenReturned, BorrowStatus.PENDING, BorrowStatus.BORROWED, START.plusHours(1));
+        event(sweptThenReturned, BorrowStatus.BORROWED, BorrowStatus.OVERDUE, START.plusDays(15));
+        event(sweptThenReturned, BorrowStatus.OVERDUE, BorrowStatus.RETURNED, START.plusDays(20));
+
+        // returned late before the sweep marked it
+        BorrowRecord lateBeforeSweep = loan(START.plusHours(2), START.plusDays(14), BorrowStatus.RETURNED);
+        lateBeforeSweep.setReturnDate(START.plusDays(14).plusHours(5));
+        event(lateBeforeSweep, BorrowStatus.PENDING, BorrowStatus.BORROWED, START.plusHours(2));
+        event(lateBeforeSweep, BorrowStatus.BORROWED, BorrowStatus.RETURNED, START.plusDays(14).plusHours(5));
+
+        // still out, due on March 31 and swept on April 2
+        BorrowRecord overdue = loan(START.plusDays(1), START.plusDays(21), BorrowStatus.OVERDUE);
+        event(overdue, BorrowStatus.PENDING, BorrowStatus.BORROWED, START.plusDays(1));
+        event(overdue, BorrowStatus.BORROWED, BorrowStatus.OVERDUE, START.plusDays(23));
+
+        // issued directly and not yet due
+        BorrowRecord out = loan(START.plusDays(2), START.plusDays(40), BorrowStatus.BORROWED);
+        event(out, null, BorrowStatus.BORROWED, START.plusDays(2));
+
+        loan(START.plusDays(2), START.plusDays(16), BorrowStatus.PENDING);
+        entityManager.flush();
+
+        borrowRollupRepository.deleteAllInBatch();
+        borrowRollupRepository.addHistory();
+        List<String> fromHistory = rollups();
+
+        borrowRollupRepository.deleteAllInBatch();
+        jdbcTemplate.update(BorrowRollupRepository.ADD_EVENTS, Map.of("eventIds", eventIds));
+        List<String> fromEvents = rollups();
+
+        assertEquals(fromHistory, fromEvents);
+        // overdue loans land in the month they fell due, not the month they were swept
+        assertEquals(List.of("MONTH 2024-03-01T00:00 borrowed=5 returned=3 overdue=3 late=2"), monthTotals(fromEvents));
+    }
+
+    private List<String> rollups() {
+        entityManager.clear();
+        List<String> rows = new ArrayList<>();
+        for (Granularity granularity : Granularity.values()) {
+            for (BorrowRollup rollup : borrowRollupRepository.findRangeForCategory(granularity, category,
+                    START.minusYears(1), START.plusYears(1))) {
+                rows.add(granularity + " " + rollup.getBucketStart() + " borrowed=" + rollup.getBorrowed()
+                        + " returned=" + rollup.getReturned() + " overdue=" + rollup.getOverdue()
+                        + " late=" + rollup.getReturnedLate() + " loanSeconds=" + rollup.getLoanSeconds());
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> monthTotals(List<String> rows) {
+        return rows.stream()
+                .filter(row -> row.startsWith("MONTH"))
+                .map(row -> row.substring(0, row.indexOf(" loanSeconds")))
+                .toList();
+    }
+
+    private BorrowRecord loan(LocalDateTime approvedAt, LocalDateTime dueDate, BorrowStatus status) {
+        BorrowRecord record = new BorrowRecord();
+        record.setUser(user);
+        record.setBook(book);
+        record.setBorrowDate(approvedAt);
+        record.setApprovedDate(status == BorrowStatus.PENDING ? null : approvedAt);
+        record.setDueDate(dueDate);
+        record.setStatus(status);
+        return entityManager.persist(record);
+    }
+
+    private void event(BorrowRecord record, BorrowStatus from, BorrowStatus to, LocalDateTime occurredAt) {
+        BorrowEvent event = new BorrowEvent();
+        event.setBorrowRecordId(record.getId());
+        event.setUserId(user.getId());
+        event.setBookId(book.getId());
+        event.setFromStatus(from);
+        event.setToStatus(to);
+        event.setOccurredAt(occurredAt);
+        event.setPublished(true);
+        eventIds.add(entityManager.persist(event).getId());
+    }
+
+    private User saveUser() {
+        User reader = new User();
+        reader.setName("Rollup Reader");
+        reader.setEmail(UUID.randomUUID() + "@test.local");
+        reader.setGender("Other");
+        reader.setMobile("0000000000");
+        reader.setPassword("not-a-real-hash");
+        return entityManager.persist(reader);
+    }
+
+    private Book saveBook() {
+        Book rollupBook = new Book();
+        rollupBook.setTitle("Rollup Title");
+        rollupBook.setAuthor("Test Author");
+        rollupBook.setIsbn("TEST-" + UUID.randomUUID());
+        rollupBook.setCategory(category);
+        rollupBook.setTotalCopies(1);
+        rollupBook.setAvailableCopies(1);
+        return entityManager.persist(rollupBook);
+    }
+}
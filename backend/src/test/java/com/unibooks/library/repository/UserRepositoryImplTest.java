@@ -0,0 +1,143 @@
+package com.unibooks.library.repository;
+
+import com.unibooks.library.dto.UserPageResponse;
+import com.unibooks.library.dto.UserSearchCriteria;
+import com.unibooks.library.dto.UserSummary;
+import com.unibooks.library.model.User;
+import com.unibooks.library.service.UserService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.unibooks.library.repository.UserRepositoryImplTest$RecordingInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserService.class)
+class UserRepositoryImplTest {
+
+    // every user a test creates starts with this, so searching for it ignores other rows
+    private final String marker = "Zq" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void pagesThroughDuplicateNamesByIdInBothDirections() {
+        List<User> users = new ArrayList<>();
+        for (String suffix : List.of(" B", " A", " B", " C", " B", " B")) {
+            users.add(save(marker + suffix, User.Role.USER));
+        }
+        List<Long> ascending = users.stream()
+                .sorted(Comparator.comparing(User::getName).thenComparing(User::getId))
+                .map(User::getId)
+                .toList();
+        List<Long> descending = new ArrayList<>(ascending);
+        Collections.reverse(descending);
+
+        assertEquals(ascending, allIds("name", "asc"));
+        assertEquals(descending, allIds("name", "desc"));
+    }
+
+    @Test
+    void filtersByRole() {
+        User reader = save(marker + " Reader", User.Role.USER);
+        User librarian = save(marker + " Librarian", User.Role.LIBRARIAN);
+
+        assertEquals(List.of(librarian.getId()), ids(search(marker, User.Role.LIBRARIAN)));
+        assertEquals(List.of(reader.getId()), ids(search(marker, User.Role.USER)));
+        assertEquals(2, search(marker, null).size());
+    }
+
+    @Test
+    void likeWildcardsInTheQueryMatchLiterally() {
+        User percent = save(marker + "50% off", User.Role.USER);
+        save(marker + "50x off", User.Role.USER);
+        User underscore = save(marker + "a_b", User.Role.USER);
+        save(marker + "axb", User.Role.USER);
+        User backslash = save(marker + "c\\d", User.Role.USER);
+        save(marker + "cxd", User.Role.USER);
+
+        assertEquals(List.of(percent.getId()), ids(search(marker + "50%", null)));
+        assertEquals(List.of(underscore.getId()), ids(search(marker + "a_", null)));
+        assertEquals(List.of(backslash.getId()), ids(search(marker + "c\\", null)));
+    }
+
+    @Test
+    void neverSelectsThePassword() {
+        save(marker + " Reader", User.Role.USER);
+        RecordingInspector.statements.clear();
+
+        assertEquals(1, search(marker, null).size());
+
+        List<String> selects = RecordingInspector.statements.stream()
+                .filter(sql -> sql.toLowerCase().startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty());
+        for (String sql : selects) {
+            assertTrue(sql.toLowerCase().contains("from users"), sql);
+            assertFalse(sql.toLowerCase().contains("password"), sql);
+        }
+    }
+
+    private List<Long> allIds(String sort, String direction) {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setQ(marker);
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPageResponse page = userService.getUsersPage(criteria, sort, direction, cursor, 2);
+            ids.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private List<UserSummary> search(String q, User.Role role) {
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setQ(q);
+        criteria.setRole(role);
+        return userRepository.searchPageAfter(criteria, UserSort.NAME, true, null, null, 50);
+    }
+
+    private static List<Long> ids(List<UserSummary> users) {
+        return users.stream().map(UserSummary::getId).toList();
+    }
+
+    private User save(String name, User.Role role) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(UUID.randomUUID() + "@test.local");
+        user.setGender("Other");
+        user.setMobile("0000000000");
+        user.setPassword("not-a-real-hash");
+        user.setRole(role);
+        return userRepository.saveAndFlush(user);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
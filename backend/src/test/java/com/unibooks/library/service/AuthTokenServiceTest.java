@@ -0,0 +1,57 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.RefreshToken;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.RefreshTokenRepository;
+import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private AuthTokenService authTokenService;
+
+    @Test
+    void refreshIssuesTheRoleStoredForTheUserNow() {
+        RefreshToken current = new RefreshToken();
+        current.setUserId(7L);
+        current.setFamilyId("family");
+        current.setExpiresAt(LocalDateTime.now().plusDays(1));
+        when(refreshTokenRepository.lockByTokenHash(anyString())).thenReturn(Optional.of(current));
+
+        User promoted = new User();
+        promoted.setId(7L);
+        promoted.setEmail("reader@campus.edu");
+        promoted.setRole(User.Role.LIBRARIAN);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(promoted));
+
+        assertNotNull(authTokenService.rotate("refresh-token"));
+
+        verify(jwtUtil).generateToken(anyString(), eq("reader@campus.edu"), eq("LIBRARIAN"), any());
+    }
+}
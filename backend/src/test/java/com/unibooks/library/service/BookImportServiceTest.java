@@ -0,0 +1,137 @@
+package com.unibooks.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unibooks.library.dto.BookImportError;
+import com.unibooks.library.dto.BookImportReport;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.util.CsvUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BookImportServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    @Mock
+    private CatalogCache catalogCache;
+
+    @Mock
+    private LibraryStats libraryStats;
+
+    @InjectMocks
+    private BookImportService bookImportService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> work = invocation.getArgument(0);
+            work.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void quotedCsvValuesMaySpanLines() {
+        String title = "Notes, \"Annotated\"\nSecond Edition";
+        String csv = "title,author,isbn,category,totalCopies\n"
+                + CsvUtils.escape(title) + ",Ann Author,978-1,Essays,2\n"
+                + "Plain Title,Bo Author,978-2,Essays,1\n";
+
+        BookImportReport report = bookImportService.importBooks(upload(csv), "csv");
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(2, report.getRowsRead());
+        assertEquals(2, report.getInserted());
+        List<Object[]> rows = insertedRows();
+        assertArrayEquals(new Object[] {title, "Ann Author", "978-1", "Essays", 2, 2, null}, rows.get(0));
+        assertEquals("Plain Title", rows.get(1)[0]);
+    }
+
+    @Test
+    void ndjsonRowsAreImported() {
+        String ndjson = "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"isbn\":\"978-3\",\"category\":\"Fiction\",\"totalCopies\":3}\n"
+                + "\n"
+                + "{\"title\":\"Emma\",\"author\":\"Jane Austen\",\"isbn\":\"978-4\",\"category\":\"Fiction\",\"totalCopies\":1,\"availableCopies\":0}\n";
+
+        BookImportReport report = bookImportService.importBooks(upload(ndjson), "ndjson");
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(2, report.getInserted());
+        List<Object[]> rows = insertedRows();
+        assertArrayEquals(new Object[] {"Dune", "Frank Herbert", "978-3", "Fiction", 3, 3, null}, rows.get(0));
+        assertEquals(0, rows.get(1)[5]);
+    }
+
+    @Test
+    void badRowsAreReportedByLineAndTheRestImported() {
+        String csv = "title,author,isbn,category,totalCopies\n"
+                + "Good One,Ann Author,978-5,Essays,1\n"
+                + "\"Spans\nlines\",Ann Author,978-6,Essays,many\n"
+                + "Repeat,Ann Author,978-5,Essays,1\n"
+                + "Missing Author,,978-7,Essays,1\n"
+                + "\"Never closed,Ann Author,978-8,Essays,1\n";
+
+        BookImportReport report = bookImportService.importBooks(upload(csv), "csv");
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(5, report.getRowsRead());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(3, report.getFailed());
+        List<BookImportError> errors = report.getErrors();
+        assertEquals(new BookImportError(3L, null, "totalCopies must be a whole number"), errors.get(0));
+        assertEquals(new BookImportError(5L, "978-5", "Duplicate ISBN in upload"), errors.get(1));
+        assertEquals(new BookImportError(6L, null, "title, author, isbn and category are required"), errors.get(2));
+        assertEquals(new BookImportError(7L, null, "Unterminated quoted field"), errors.get(3));
+    }
+
+    private List<Object[]> insertedRows() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private static ByteArrayInputStream upload(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
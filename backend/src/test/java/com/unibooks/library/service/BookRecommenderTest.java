@@ -0,0 +1,89 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.repository.BorrowEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookRecommenderTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BorrowEventRepository borrowEventRepository = mock(BorrowEventRepository.class);
+    private final BookRecommender recommender = new BookRecommender(jdbcTemplate, borrowEventRepository,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    private final List<long[]> history = new ArrayList<>();
+    private Runnable duringScan = () -> { };
+
+    BookRecommenderTest() throws SQLException {
+        doAnswer(invocation -> {
+            duringScan.run();
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] row : history) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getLong(1)).thenReturn(row[0]);
+                when(resultSet.getLong(2)).thenReturn(row[1]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void lowerIdCommittedAfterTheSnapshotIsStillApplied() {
+        // event 8 (record 80) committed before the rebuild read the tables; event 5
+        // (record 50) was inserted first but committed afterwards
+        history.add(new long[] {1, 10});
+        when(borrowEventRepository.findUndeliveredBorrowRecordIds(BorrowStatus.BORROWED, BorrowStatus.OVERDUE))
+                .thenReturn(List.of(80L));
+        recommender.rebuild();
+
+        deliver(borrow(8, 80, 1, 10));
+        deliver(borrow(5, 50, 1, 11));
+
+        assertEquals(List.of(11L), recommender.similar(10L, 5));
+        assertEquals(List.of(10L), recommender.similar(11L, 5));
+    }
+
+    @Test
+    void eventsDeliveredDuringTheScanAreAppliedUnlessTheScanCountedThem() {
+        // record 80 is in the scanned history; record 50 committed after the snapshot was taken
+        history.add(new long[] {1, 10});
+        when(borrowEventRepository.findUndeliveredBorrowRecordIds(BorrowStatus.BORROWED, BorrowStatus.OVERDUE))
+                .thenReturn(List.of(80L));
+        duringScan = () -> {
+            deliver(borrow(8, 80, 1, 10));
+            deliver(borrow(5, 50, 1, 11));
+        };
+        recommender.rebuild();
+
+        assertEquals(List.of(11L), recommender.similar(10L, 5));
+        assertEquals(List.of(10L), recommender.similar(11L, 5));
+    }
+
+    private void deliver(BorrowEventMessage event) {
+        recommender.onBorrowEvents(new InProcessBorrowEventSink.BorrowEventsPublished(List.of(event)));
+    }
+
+    private static BorrowEventMessage borrow(long id, long recordId, long userId, long bookId) {
+        return new BorrowEventMessage(id, recordId, userId, bookId, BorrowStatus.PENDING, BorrowStatus.BORROWED,
+                LocalDateTime.now());
+    }
+}
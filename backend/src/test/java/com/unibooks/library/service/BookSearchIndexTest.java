@@ -0,0 +1,117 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex();
+        index.index(book(1L, "Introduction to Algorithms", "Thomas Cormen", "Computer Science", "978-0262033848"));
+        index.index(book(2L, "Algorithms Unlocked", "Thomas Cormen", "Computer Science", "978-0262518802"));
+        index.index(book(3L, "Clean Code", "Robert Martin", "Software Engineering", "978-0132350884"));
+        index.index(book(4L, "Les Misérables", "Victor Hugo", "Fiction", "978-0451419439"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ranksDocumentsMatchingAllTermsFirst() {
+        List<Long> ids = index.search("cormen algorithms introduction", 10);
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    void matchesPrefixesAccentsAndIsbns() {
+        assertEquals(List.of(3L), index.search("clea", 10));
+        assertEquals(List.of(4L), index.search("miserables", 10));
+        assertEquals(List.of(3L), index.search("9780132350884", 10));
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertEquals(List.of(3L), index.search("mratin", 10));
+        assertTrue(index.search("algoritms", 10).containsAll(List.of(1L, 2L)));
+    }
+
+    @Test
+    void restrictsToSingleField() {
+        assertTrue(index.search("thomas", BookSearchIndex.Field.TITLE, 10).isEmpty());
+        assertEquals(2, index.search("thomas", BookSearchIndex.Field.AUTHOR, 10).size());
+    }
+
+    @Test
+    void updatesAndRemovesDocuments() {
+        index.index(book(3L, "Clean Architecture", "Robert Martin", "Software Engineering", "978-0134494166"));
+        assertTrue(index.search("code", 10).isEmpty());
+        assertEquals(List.of(3L), index.search("architecture", 10));
+
+        index.remove(3L);
+        assertTrue(index.search("martin", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void changesApplyOnlyOnceTheTransactionCommits() {
+        Book renamed = book(3L, "Clean Architecture", "Robert Martin", "Software Engineering", "978-0134494166");
+        List<TransactionSynchronization> committed = inTransaction(() -> {
+            index.index(renamed);
+            index.remove(4L);
+        });
+        // changing the entity after the call must not leak into the index
+        renamed.setTitle("Something Else");
+        assertEquals(List.of(3L), index.search("code", 10));
+        assertEquals(List.of(4L), index.search("hugo", 10));
+
+        committed.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(3L), index.search("architecture", 10));
+        assertTrue(index.search("code", 10).isEmpty());
+        assertTrue(index.search("hugo", 10).isEmpty());
+    }
+
+    @Test
+    void rolledBackDeletesStaySearchable() {
+        inTransaction(() -> index.remove(4L));
+
+        assertEquals(List.of(4L), index.search("hugo", 10));
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Book book(Long id, String title, String author, String category, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setIsbn(isbn);
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        return book;
+    }
+}
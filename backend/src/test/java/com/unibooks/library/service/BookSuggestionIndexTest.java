@@ -0,0 +1,61 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookSuggestionIndexTest {
+
+    private final BookSuggestionIndex index = new BookSuggestionIndex();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void borrowCountsOnlyOnceTheTransactionCommits() {
+        index.index(book(1L, "Dune", "Frank Herbert"));
+
+        List<TransactionSynchronization> committed = inTransaction(() -> index.recordBorrow(1L));
+        assertEquals(0L, index.suggest("dune", 5).get(0).getPopularity());
+
+        committed.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1L, index.suggest("dune", 5).get(0).getPopularity());
+    }
+
+    @Test
+    void rolledBackBorrowsAreNeverCounted() {
+        index.index(book(1L, "Dune", "Frank Herbert"));
+
+        inTransaction(() -> index.recordBorrow(1L));
+
+        assertEquals(0L, index.suggest("dune", 5).get(0).getPopularity());
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Book book(Long id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+}
@@ -0,0 +1,84 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BorrowAnalyticsTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private BorrowAnalytics borrowAnalytics;
+
+    @BeforeEach
+    void setUp() {
+        borrowAnalytics.init();
+    }
+
+    @Test
+    void aBatchThatKeepsFailingIsSkippedInsteadOfBlockingTheRelay() {
+        when(jdbcTemplate.update(anyString(), anyMap())).thenThrow(new DataIntegrityViolationException("bad row"));
+        InProcessBorrowEventSink.BorrowEventsPublished batch = batch(11L, 12L);
+
+        for (int attempt = 1; attempt < BorrowAnalytics.MAX_BATCH_ATTEMPTS; attempt++) {
+            assertThrows(DataIntegrityViolationException.class, () -> borrowAnalytics.onBorrowEvents(batch));
+        }
+        assertDoesNotThrow(() -> borrowAnalytics.onBorrowEvents(batch));
+        assertEquals(1.0, meterRegistry.counter("library.analytics.skipped.batches").count());
+
+        // the next batch gets its own attempts
+        assertThrows(DataIntegrityViolationException.class, () -> borrowAnalytics.onBorrowEvents(batch(13L)));
+    }
+
+    @Test
+    void anotherBatchSucceedingResetsTheAttempts() {
+        when(jdbcTemplate.update(anyString(), anyMap()))
+                .thenThrow(new DataIntegrityViolationException("bad row"))
+                .thenReturn(3)
+                .thenThrow(new DataIntegrityViolationException("bad row"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> borrowAnalytics.onBorrowEvents(batch(11L)));
+        borrowAnalytics.onBorrowEvents(batch(11L));
+        assertThrows(DataIntegrityViolationException.class, () -> borrowAnalytics.onBorrowEvents(batch(12L)));
+        assertEquals(0.0, meterRegistry.counter("library.analytics.skipped.batches").count());
+    }
+
+    private static InProcessBorrowEventSink.BorrowEventsPublished batch(Long... ids) {
+        List<BorrowEventMessage> events = Arrays.stream(ids)
+                .map(id -> new BorrowEventMessage(id, id, 1L, 1L, BorrowStatus.PENDING, BorrowStatus.BORROWED,
+                        LocalDateTime.now()))
+                .toList();
+        return new InProcessBorrowEventSink.BorrowEventsPublished(events);
+    }
+}
@@ -0,0 +1,112 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the event log behind a real transaction interceptor over a mocked
+ * connection: an event is written on the connection of the transaction that
+ * makes the change, so it commits or rolls back with that change.
+ */
+@ExtendWith(MockitoExtension.class)
+class BorrowEventLogTest {
+
+    private static final String TRANSITION_SQL = "UPDATE borrow_records SET status = 'BORROWED' WHERE id = ?";
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private BorrowEventLog borrowEventLog;
+
+    @BeforeEach
+    void setUp() {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        BorrowEventLog target = new BorrowEventLog();
+        ReflectionTestUtils.setField(target, "jdbcTemplate", jdbcTemplate);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        borrowEventLog = (BorrowEventLog) proxyFactory.getProxy();
+    }
+
+    @Test
+    void aTransitionAndItsEventCommitTogether() throws SQLException {
+        givenAConnection();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(TRANSITION_SQL, 5L);
+            borrowEventLog.record(5L, 7L, 3L, BorrowStatus.PENDING, BorrowStatus.BORROWED);
+        });
+
+        verify(connection).prepareStatement(TRANSITION_SQL);
+        verify(connection).prepareStatement(startsWith("INSERT INTO borrow_events"));
+        verify(dataSource).getConnection();
+        verify(connection).commit();
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void aTransitionAndItsEventRollBackTogether() throws SQLException {
+        givenAConnection();
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(TRANSITION_SQL, 5L);
+            borrowEventLog.record(5L, 7L, 3L, BorrowStatus.PENDING, BorrowStatus.BORROWED);
+            throw new IllegalStateException("a later step of the change failed");
+        }));
+
+        verify(connection).prepareStatement(startsWith("INSERT INTO borrow_events"));
+        verify(dataSource).getConnection();
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    void anEventIsNeverWrittenOutsideTheChangesTransaction() throws SQLException {
+        assertThrows(IllegalTransactionStateException.class,
+                () -> borrowEventLog.record(5L, 7L, 3L, BorrowStatus.PENDING, BorrowStatus.BORROWED));
+
+        verify(dataSource, never()).getConnection();
+    }
+
+    private void givenAConnection() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.getConnection()).thenReturn(connection);
+    }
+}
@@ -0,0 +1,175 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowRequest;
+import com.unibooks.library.dto.ReturnRequest;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BorrowServiceConcurrencyTest {
+
+    private static final int COPIES = 5;
+    private static final int REQUESTS = 40;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    private Book book;
+    private final List<Book> extraBooks = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<BorrowRecord> requests = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        book = new Book();
+        book.setTitle("Concurrency Test Title");
+        book.setAuthor("Test Author");
+        book.setIsbn("TEST-" + UUID.randomUUID());
+        book.setCategory("Test");
+        book.setTotalCopies(COPIES);
+        book.setAvailableCopies(COPIES);
+        book = bookRepository.save(book);
+
+        for (int i = 0; i < REQUESTS; i++) {
+            User user = new User();
+            user.setName("Test User " + i);
+            user.setEmail(UUID.randomUUID() + "@test.local");
+            user.setGender("Other");
+            user.setMobile("0000000000");
+            user.setPassword("not-a-real-hash");
+            users.add(userRepository.save(user));
+
+            BorrowRecord request = new BorrowRecord();
+            request.setUser(users.get(i));
+            request.setBook(book);
+            request.setBorrowDate(LocalDateTime.now());
+            request.setDueDate(LocalDateTime.now().plusDays(14));
+            request.setStatus(BorrowStatus.PENDING);
+            requests.add(borrowRecordRepository.save(request));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAll(requests);
+        for (Book extra : extraBooks) {
+            borrowRecordRepository.deleteAll(borrowRecordRepository.findByBookIdOrderByBorrowDateDesc(extra.getId()));
+            bookRepository.deleteById(extra.getId());
+        }
+        userRepository.deleteAll(users);
+        bookRepository.deleteById(book.getId());
+    }
+
+    @Test
+    void concurrentSubmitsByOneUserNeverExceedTheBorrowLimit() throws Exception {
+        User borrower = users.get(0);
+        List<Callable<Boolean>> submits = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Book extra = new Book();
+            extra.setTitle("Limit Test Title " + i);
+            extra.setAuthor("Test Author");
+            extra.setIsbn("TEST-" + UUID.randomUUID());
+            extra.setCategory("Test");
+            extra.setTotalCopies(1);
+            extra.setAvailableCopies(1);
+            extraBooks.add(bookRepository.save(extra));
+            Long bookId = extraBooks.get(i).getId();
+            submits.add(() -> {
+                borrowService.borrowBook(new BorrowRequest(borrower.getId(), bookId, null));
+                return true;
+            });
+        }
+
+        // the user already holds one pending request from setUp
+        assertEquals(BorrowLimiter.MAX_BOOKS_PER_USER - 1, runConcurrently(submits));
+    }
+
+    @Test
+    void concurrentApprovalsNeverOversellAndConcurrentReturnsRestoreEveryCopy() throws Exception {
+        List<Callable<Boolean>> approvals = new ArrayList<>();
+        for (BorrowRecord request : requests) {
+            approvals.add(() -> {
+                borrowService.approveBorrowRequest(request.getId());
+                return true;
+            });
+        }
+        // every request is approved twice to also race duplicate approvals of the same record
+        approvals.addAll(new ArrayList<>(approvals));
+
+        assertEquals(COPIES, runConcurrently(approvals));
+        assertEquals(0, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+        assertEquals(COPIES, borrowRecordRepository.findByBookIdAndStatus(book.getId(), BorrowStatus.BORROWED).size());
+
+        List<Callable<Boolean>> returns = new ArrayList<>();
+        for (BorrowRecord borrowed : borrowRecordRepository.findByBookIdAndStatus(book.getId(), BorrowStatus.BORROWED)) {
+            Callable<Boolean> returnBook = () -> {
+                borrowService.returnBook(new ReturnRequest(borrowed.getId(), false));
+                return true;
+            };
+            returns.add(returnBook);
+            returns.add(returnBook);
+        }
+
+        assertEquals(COPIES, runConcurrently(returns));
+        assertEquals(COPIES, bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies());
+    }
+
+    private int runConcurrently(List<Callable<Boolean>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (Callable<Boolean> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        int succeeded = 0;
+        for (Future<Boolean> future : futures) {
+            try {
+                if (future.get()) {
+                    succeeded++;
+                }
+            } catch (Exception e) {
+                // rejected by the service: already approved, already returned or sold out
+            }
+        }
+        return succeeded;
+    }
+}
@@ -0,0 +1,132 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowResponse;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.BorrowRecord;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the overdue sweep is held off so it can't move the past-due rows to OVERDUE mid-test
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.overdue-sweep.initial-delay-ms=3600000"
+})
+class BorrowServiceQueryCountTest {
+
+    // i % 3 == 0 is PENDING (0, 3, 6, 9); the rest are BORROWED, and of those
+    // the even ones are past due (2, 4, 8)
+    private static final int RECORDS = 10;
+    private static final int PENDING = 4;
+    private static final int BORROWED = 6;
+    private static final int OVERDUE = 3;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Book> books = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+    private final List<BorrowRecord> records = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < RECORDS; i++) {
+            Book book = new Book();
+            book.setTitle("Query Count Title " + i);
+            book.setAuthor("Test Author");
+            book.setIsbn("TEST-" + UUID.randomUUID());
+            book.setCategory("Test");
+            book.setTotalCopies(1);
+            book.setAvailableCopies(1);
+            books.add(bookRepository.save(book));
+
+            User user = new User();
+            user.setName("Query Count User " + i);
+            user.setEmail(UUID.randomUUID() + "@test.local");
+            user.setGender("Other");
+            user.setMobile("0000000000");
+            user.setPassword("not-a-real-hash");
+            users.add(userRepository.save(user));
+
+            BorrowRecord record = new BorrowRecord();
+            record.setUser(users.get(i));
+            record.setBook(books.get(i));
+            record.setBorrowDate(LocalDateTime.now().minusDays(20));
+            BorrowStatus status = i % 3 == 0 ? BorrowStatus.PENDING : BorrowStatus.BORROWED;
+            boolean pastDue = status == BorrowStatus.BORROWED && i % 2 == 0;
+            record.setDueDate(LocalDateTime.now().plusDays(pastDue ? -6 : 6));
+            record.setStatus(status);
+            records.add(borrowRecordRepository.save(record));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowRecordRepository.deleteAll(records);
+        userRepository.deleteAll(users);
+        bookRepository.deleteAll(books);
+    }
+
+    @Test
+    void everyListingIsASingleJoinedSelect() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Long userId = users.get(0).getId();
+
+        assertSingleStatement(statistics, () -> assertEquals(RECORDS, ownRecords(borrowService.getAllBorrowRecords().getItems())));
+        assertSingleStatement(statistics, () -> assertEquals(BORROWED, ownRecords(borrowService.getActiveBorrows().getItems())));
+        assertSingleStatement(statistics, () -> assertEquals(PENDING, ownRecords(borrowService.getPendingRequests())));
+        // one seek per status
+        assertStatements(statistics, 2, () -> assertEquals(OVERDUE, ownRecords(borrowService.getOverdueBorrows().getItems())));
+        assertSingleStatement(statistics, () -> assertEquals(1, borrowService.getUserBorrowHistory(userId).size()));
+        assertSingleStatement(statistics, () -> assertEquals(1, borrowService.getUserPendingRequests(userId).size()));
+        assertSingleStatement(statistics, () -> assertEquals(0, borrowService.getUserActiveBorrows(userId).size()));
+        assertSingleStatement(statistics, () -> borrowService.getBorrowRecordById(records.get(1).getId()));
+    }
+
+    // the listings are global, so only count the rows this test created
+    private long ownRecords(List<BorrowResponse> responses) {
+        Set<Long> ids = records.stream().map(BorrowRecord::getId).collect(Collectors.toSet());
+        return responses.stream().filter(response -> ids.contains(response.getId())).count();
+    }
+
+    private static void assertSingleStatement(Statistics statistics, Runnable call) {
+        assertStatements(statistics, 1, call);
+    }
+
+    private static void assertStatements(Statistics statistics, long expected, Runnable call) {
+        statistics.clear();
+        call.run();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+}
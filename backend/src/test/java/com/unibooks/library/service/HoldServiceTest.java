@@ -0,0 +1,100 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.HoldRequest;
+import com.unibooks.library.dto.UserPrincipal;
+import com.unibooks.library.model.Book;
+import com.unibooks.library.model.Hold;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.HoldRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @InjectMocks
+    private HoldService holdService;
+
+    @Test
+    void anotherUsersHoldIsNotCancelled() {
+        when(holdRepository.findById(5L)).thenReturn(Optional.of(hold(5L, 8L)));
+
+        assertThrows(AccessDeniedException.class, () -> holdService.cancelHold(5L, 7L));
+        verify(holdRepository, never()).transition(anyList(), anyList(), any());
+    }
+
+    @Test
+    void duplicateHoldIsCheckedUnderTheBookLock() {
+        Book book = new Book();
+        book.setId(3L);
+        when(bookRepository.lockAvailableCopies(List.of(3L))).thenReturn(List.<Object[]>of(new Object[]{3L, 0}));
+        when(userPrincipalCache.findById(7L)).thenReturn(Optional.of(principal(7L)));
+        when(bookRepository.getReferenceById(3L)).thenReturn(book);
+        when(holdRepository.existsForUserAndBook(eq(7L), eq(3L), anyList())).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> holdService.placeHold(request(7L, 3L)));
+        InOrder order = inOrder(bookRepository, holdRepository);
+        order.verify(bookRepository).lockAvailableCopies(List.of(3L));
+        order.verify(holdRepository).existsForUserAndBook(eq(7L), eq(3L), anyList());
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    void availableBookIsNotHeld() {
+        when(bookRepository.lockAvailableCopies(List.of(3L))).thenReturn(List.<Object[]>of(new Object[]{3L, 1}));
+        when(userPrincipalCache.findById(7L)).thenReturn(Optional.of(principal(7L)));
+
+        assertThrows(RuntimeException.class, () -> holdService.placeHold(request(7L, 3L)));
+        verify(holdRepository, never()).save(any());
+    }
+
+    private static UserPrincipal principal(Long userId) {
+        return new UserPrincipal(userId, "reader@test.local", "Reader", "Other", "0000000000", User.Role.USER);
+    }
+
+    private static HoldRequest request(Long userId, Long bookId) {
+        HoldRequest request = new HoldRequest();
+        request.setUserId(userId);
+        request.setBookId(bookId);
+        return request;
+    }
+
+    private static Hold hold(Long id, Long userId) {
+        User user = new User();
+        user.setId(userId);
+        Book book = new Book();
+        book.setId(3L);
+        Hold hold = new Hold();
+        hold.setId(id);
+        hold.setUser(user);
+        hold.setBook(book);
+        return hold;
+    }
+}
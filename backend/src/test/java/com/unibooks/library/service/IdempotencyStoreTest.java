@@ -0,0 +1,93 @@
+package com.unibooks.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(new SimpleMeterRegistry(), 60, 1000);
+
+    @Test
+    void replaysTheOriginalResponseWithoutRunningTheActionAgain() {
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<?> first = store.execute("key-1", "renew/7", 3, () -> ResponseEntity.ok("renewed " + runs.incrementAndGet()));
+        ResponseEntity<?> retry = store.execute("key-1", "renew/7", 3, () -> ResponseEntity.ok("renewed " + runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals("renewed 1", retry.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void rejectsAKeyReusedForADifferentRequest() {
+        store.execute("key-1", "renew/7", 3, () -> ResponseEntity.ok("renewed"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, store.execute("key-1", "renew/7", 5, () -> ResponseEntity.ok("x")).getStatusCode());
+        assertEquals(HttpStatus.OK, store.execute("key-1", "renew/8", 3, () -> ResponseEntity.ok("other record")).getStatusCode());
+    }
+
+    @Test
+    void failedRequestsAreNotRememberedAndRequestsWithoutAKeyAlwaysRun() {
+        AtomicInteger runs = new AtomicInteger();
+
+        store.execute("key-1", "borrow", "book 1", () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("deadlock");
+        });
+        ResponseEntity<?> retry = store.execute("key-1", "borrow", "book 1", () -> ResponseEntity.ok("borrowed " + runs.incrementAndGet()));
+        store.execute(null, "borrow", "book 1", () -> ResponseEntity.ok(runs.incrementAndGet()));
+
+        assertEquals("borrowed 2", retry.getBody());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void concurrentRetriesWaitForTheOriginalInsteadOfRunningIt() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ResponseEntity<?>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return store.execute("key-1", "approve/3", null, () -> {
+                    runs.incrementAndGet();
+                    sleep(50);
+                    return ResponseEntity.ok("approved");
+                });
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(1, runs.get());
+        for (Future<ResponseEntity<?>> response : responses) {
+            assertEquals("approved", response.get().getBody());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
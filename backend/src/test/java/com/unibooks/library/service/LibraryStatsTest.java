@@ -0,0 +1,68 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.LibraryStatsResponse;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.repository.BookRepository;
+import com.unibooks.library.repository.BorrowRecordRepository;
+import com.unibooks.library.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryStatsTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @InjectMocks
+    private LibraryStats libraryStats;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.count()).thenReturn(10L);
+        when(borrowRecordRepository.countByStatus()).thenReturn(List.of(
+                new Object[] {BorrowStatus.BORROWED, 4L},
+                new Object[] {BorrowStatus.OVERDUE, 3L},
+                new Object[] {BorrowStatus.RETURNED, 9L}));
+        when(borrowRecordRepository.sumFinesByStatus(BorrowStatus.OVERDUE)).thenReturn(30.0);
+        libraryStats.reconcile();
+        clearInvocations(bookRepository, borrowRecordRepository);
+    }
+
+    @Test
+    void removingABookSubtractsItsBorrowRecordsWithoutARecount() {
+        when(borrowRecordRepository.countAndSumFinesByStatusForBook(5L)).thenReturn(List.of(
+                new Object[] {BorrowStatus.OVERDUE, 2L, 12.5},
+                new Object[] {BorrowStatus.RETURNED, 1L, 4.0}));
+
+        libraryStats.bookRemoved(5L);
+
+        LibraryStatsResponse stats = libraryStats.snapshot();
+        assertEquals(9L, stats.getTotalBooks());
+        assertEquals(4L, stats.getActiveBorrows());
+        assertEquals(1L, stats.getOverdueBorrows());
+        assertEquals(8L, stats.getReturnedBorrows());
+        // fines on returned records were never outstanding
+        assertEquals(17.5, stats.getFinesOutstanding());
+        verify(bookRepository, never()).count();
+        verify(borrowRecordRepository, never()).countByStatus();
+    }
+}
@@ -0,0 +1,119 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.BorrowEventMessage;
+import com.unibooks.library.model.BorrowEvent;
+import com.unibooks.library.model.BorrowRecord.BorrowStatus;
+import com.unibooks.library.repository.BorrowEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private BorrowEventRepository borrowEventRepository;
+
+    @Mock
+    private BorrowEventSink sink;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransactionStatus status = new SimpleTransactionStatus();
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(outboxRelay, "borrowEventRepository", borrowEventRepository);
+        ReflectionTestUtils.setField(outboxRelay, "sinks", List.of(sink));
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+    }
+
+    @Test
+    void aFailingSinkRollsBackTheBatchAndItIsRedelivered() throws Exception {
+        // nothing was marked published, so the next run locks the same rows again
+        when(borrowEventRepository.lockUnpublished(500)).thenReturn(events(1L, 2L));
+        when(sink.getName()).thenReturn("analytics");
+        doThrow(new IllegalStateException("sink down")).doNothing().when(sink).publish(anyList());
+
+        outboxRelay.relay();
+
+        verify(borrowEventRepository, never()).markPublished(anyList());
+        verify(transactionManager).rollback(status);
+        verify(transactionManager, never()).commit(any());
+        assertEquals(1.0, meterRegistry.counter("library.outbox.failed.batches").count());
+        assertEquals(0.0, meterRegistry.counter("library.outbox.published").count());
+
+        outboxRelay.relay();
+
+        InOrder order = inOrder(sink, borrowEventRepository, transactionManager);
+        order.verify(sink).publish(messagesWithIds(1L, 2L));
+        order.verify(borrowEventRepository).markPublished(List.of(1L, 2L));
+        order.verify(transactionManager).commit(status);
+        verify(sink, times(2)).publish(messagesWithIds(1L, 2L));
+        assertEquals(2.0, meterRegistry.counter("library.outbox.published").count());
+    }
+
+    @Test
+    void anEmptyOutboxPublishesNothing() throws Exception {
+        when(borrowEventRepository.lockUnpublished(500)).thenReturn(new ArrayList<>());
+
+        outboxRelay.relay();
+
+        verify(sink, never()).publish(anyList());
+        verify(borrowEventRepository, never()).markPublished(anyList());
+        verify(transactionManager).commit(status);
+    }
+
+    private static List<BorrowEvent> events(Long... ids) {
+        List<BorrowEvent> events = new ArrayList<>();
+        for (Long id : ids) {
+            BorrowEvent event = new BorrowEvent();
+            event.setId(id);
+            event.setBorrowRecordId(id);
+            event.setUserId(1L);
+            event.setBookId(1L);
+            event.setFromStatus(BorrowStatus.PENDING);
+            event.setToStatus(BorrowStatus.BORROWED);
+            event.setOccurredAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static List<BorrowEventMessage> messagesWithIds(Long... ids) {
+        List<BorrowEventMessage> messages = new ArrayList<>();
+        for (BorrowEvent event : events(ids)) {
+            messages.add(new BorrowEventMessage(event.getId(), event.getBorrowRecordId(), event.getUserId(),
+                    event.getBookId(), event.getFromStatus(), event.getToStatus(), event.getOccurredAt()));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,91 @@
+package com.unibooks.library.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void hashesAndChecksOnThePool() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), meterRegistry, 4, 1, 4);
+
+        String hash = hasher.encode("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("library.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("library.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void hashesMadeAtAnotherCostNeedRehashing() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(5), meterRegistry, 5, 1, 4);
+
+        assertFalse(hasher.needsRehash(hasher.encode("secret")));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(hasher.needsRehash(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(hasher.needsRehash("not a bcrypt hash"));
+    }
+
+    @Test
+    void refusesWorkWhenTheQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        hasher = new PasswordHasher(blocking, meterRegistry, 4, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // one on the hashing thread, one in the queue
+        callers.submit(() -> hasher.encode("first"));
+        started.await();
+        callers.submit(() -> hasher.encode("second"));
+        waitForQueueDepth(1);
+
+        assertThrows(PasswordHasher.OverloadedException.class, () -> hasher.encode("third"));
+        assertEquals(1, meterRegistry.get("library.password.rejected").counter().count());
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        while (meterRegistry.get("library.password.queue.depth").gauge().value() < depth) {
+            Thread.sleep(5);
+        }
+    }
+}
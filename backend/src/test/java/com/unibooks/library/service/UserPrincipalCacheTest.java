@@ -0,0 +1,74 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserPrincipalCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserPrincipalCache cache = new UserPrincipalCache(userRepository, new SimpleMeterRegistry(), 1000, 60);
+
+    @Test
+    void repeatedLookupsByEmailAndIdReadTheTableOnce() {
+        User reader = user(7L, "reader@campus.edu", User.Role.USER);
+        when(userRepository.findByEmail("reader@campus.edu")).thenReturn(Optional.of(reader));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(7L, cache.findByEmail("reader@campus.edu").orElseThrow().getId());
+            assertEquals("reader@campus.edu", cache.findById(7L).orElseThrow().getEmail());
+        }
+
+        verify(userRepository, times(1)).findByEmail("reader@campus.edu");
+        verify(userRepository, times(0)).findById(7L);
+    }
+
+    @Test
+    void invalidationPicksUpRoleAndEmailChanges() {
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user(7L, "old@campus.edu", User.Role.USER)));
+        when(userRepository.findByEmail("old@campus.edu")).thenReturn(Optional.of(user(7L, "old@campus.edu", User.Role.USER)));
+        assertEquals(User.Role.USER, cache.findById(7L).orElseThrow().getRole());
+        assertTrue(cache.findByEmail("old@campus.edu").isPresent());
+
+        User updated = user(7L, "new@campus.edu", User.Role.LIBRARIAN);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(updated));
+        when(userRepository.findByEmail("old@campus.edu")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("new@campus.edu")).thenReturn(Optional.of(updated));
+        cache.invalidate(7L, "old@campus.edu", "new@campus.edu");
+
+        assertEquals(User.Role.LIBRARIAN, cache.findById(7L).orElseThrow().getRole());
+        assertTrue(cache.findByEmail("old@campus.edu").isEmpty());
+        assertEquals(7L, cache.findByEmail("new@campus.edu").orElseThrow().getId());
+    }
+
+    @Test
+    void unknownUsersAreNotCached() {
+        when(userRepository.findById(9L)).thenReturn(Optional.empty());
+        assertTrue(cache.findById(9L).isEmpty());
+
+        when(userRepository.findById(9L)).thenReturn(Optional.of(user(9L, "late@campus.edu", User.Role.USER)));
+        assertTrue(cache.findById(9L).isPresent());
+    }
+
+    private static User user(Long id, String email, User.Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName("Reader " + id);
+        user.setGender("F");
+        user.setMobile("555-0100");
+        user.setPassword("$2a$10$hash");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,55 @@
+package com.unibooks.library.service;
+
+import com.unibooks.library.dto.UserPageResponse;
+import com.unibooks.library.dto.UserSearchCriteria;
+import com.unibooks.library.dto.UserSummary;
+import com.unibooks.library.model.User;
+import com.unibooks.library.repository.UserRepository;
+import com.unibooks.library.repository.UserSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserService userService;
+
+    @Test
+    void cursorIsOnlyAcceptedForTheSortAndDirectionThatIssuedIt() {
+        when(userRepository.searchPageAfter(any(), eq(UserSort.NAME), eq(true), any(), any(), anyInt()))
+                .thenReturn(List.of(summary(1L, "Ada"), summary(2L, "Ben")));
+        UserSearchCriteria criteria = new UserSearchCriteria();
+
+        UserPageResponse first = userService.getUsersPage(criteria, "name", "asc", null, 1);
+        assertTrue(first.isHasMore());
+        String cursor = first.getNextCursor();
+
+        RuntimeException otherSort = assertThrows(RuntimeException.class,
+                () -> userService.getUsersPage(criteria, "email", "asc", cursor, 1));
+        assertEquals("Cursor does not match the requested sort order", otherSort.getMessage());
+        RuntimeException otherDirection = assertThrows(RuntimeException.class,
+                () -> userService.getUsersPage(criteria, "name", "desc", cursor, 1));
+        assertEquals("Cursor does not match the requested sort order", otherDirection.getMessage());
+    }
+
+    private static UserSummary summary(Long id, String name) {
+        return new UserSummary(id, name, name.toLowerCase() + "@campus.edu", "Other", "0000000000", User.Role.USER);
+    }
+}
@@ -0,0 +1,65 @@
+package com.unibooks.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Memory footprint of the recommendation matrix at catalog scale. Not picked up
+ * by the default test run; run it explicitly with
+ * {@code mvn test -Dtest=CoBorrowMatrixFootprintBenchmark}.
+ */
+class CoBorrowMatrixFootprintBenchmark {
+
+    private static final int BOOKS = 500_000;
+    private static final int USERS = 200_000;
+    private static final int BORROWS = 10_000_000;
+    private static final long BUDGET_BYTES = 512L * 1024 * 1024;
+
+    @Test
+    void footprintAtFiveHundredThousandBooksAndTenMillionBorrows() {
+        Random random = new Random(2024);
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+
+        CoBorrowMatrix matrix = new CoBorrowMatrix();
+        for (int i = 0; i < BORROWS; i++) {
+            // popularity is skewed the way circulation data is: a few titles take most of the borrows
+            long user = 1 + (long) (USERS * Math.pow(random.nextDouble(), 1.5));
+            long book = 1 + (long) (BOOKS * Math.pow(random.nextDouble(), 3));
+            matrix.recordBorrow(user, book);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        long heapAfter = usedHeap();
+
+        long queryStart = System.nanoTime();
+        int queries = 100_000;
+        long returned = 0;
+        for (int i = 0; i < queries; i++) {
+            List<Long> similar = matrix.similar(1 + random.nextInt(BOOKS), 10);
+            returned += similar.size();
+        }
+        long queryNanos = (System.nanoTime() - queryStart) / queries;
+
+        long estimated = matrix.estimatedBytes();
+        System.out.printf("co-borrow matrix: %,d books, %,d users, %,d pairs%n",
+                matrix.getBookCount(), matrix.getUserCount(), matrix.getPairCount());
+        System.out.printf("estimated %,d MB, measured heap growth %,d MB, built in %,d ms%n",
+                estimated / (1024 * 1024), (heapAfter - heapBefore) / (1024 * 1024), buildMillis);
+        System.out.printf("top-10 lookup %,d ns on average, %.1f results per lookup%n",
+                queryNanos, (double) returned / queries);
+
+        assertTrue(estimated < BUDGET_BYTES, "matrix exceeds " + BUDGET_BYTES + " bytes: " + estimated);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,119 @@
+package com.unibooks.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoBorrowMatrixTest {
+
+    @Test
+    void ranksBooksBorrowedByTheSameReaders() {
+        CoBorrowMatrix matrix = new CoBorrowMatrix();
+        // three readers take the hobbit and lord of the rings, one adds a cookbook
+        for (long user = 1; user <= 3; user++) {
+            matrix.recordBorrow(user, 10);
+            matrix.recordBorrow(user, 20);
+        }
+        matrix.recordBorrow(3, 30);
+        matrix.recordBorrow(4, 30);
+        matrix.recordBorrow(5, 30);
+
+        assertEquals(3, matrix.getCoBorrowCount(10, 20));
+        assertEquals(1, matrix.getCoBorrowCount(30, 10));
+        assertEquals(List.of(20L, 30L), matrix.similar(10, 5));
+        assertEquals(List.of(20L), matrix.similar(10, 1));
+        assertTrue(matrix.similar(99, 5).isEmpty());
+    }
+
+    @Test
+    void ignoresRepeatBorrowsAndOnlyPairsWithinTheHistoryWindow() {
+        CoBorrowMatrix matrix = new CoBorrowMatrix(2, 8);
+        matrix.recordBorrow(1, 10);
+        matrix.recordBorrow(1, 20);
+        matrix.recordBorrow(1, 10);
+        matrix.recordBorrow(1, 30);
+        matrix.recordBorrow(1, 40);
+
+        assertEquals(1, matrix.getCoBorrowCount(10, 20));
+        assertEquals(1, matrix.getCoBorrowCount(30, 10));
+        // 10 fell out of the two-book window when 30 was borrowed
+        assertEquals(0, matrix.getCoBorrowCount(40, 10));
+        assertEquals(1, matrix.getCoBorrowCount(40, 20));
+        assertEquals(1, matrix.getCoBorrowCount(40, 30));
+    }
+
+    @Test
+    void matchesBruteForceCountsAndKeepsTheStrongestNeighboursWhenFull() {
+        int window = 4;
+        int maxNeighbours = 8;
+        CoBorrowMatrix matrix = new CoBorrowMatrix(window, maxNeighbours);
+        Map<Long, List<Long>> histories = new HashMap<>();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            long user = 1 + random.nextInt(300);
+            // skewed so low ids are popular and rows overflow
+            long book = 1 + (long) (60 * Math.pow(random.nextDouble(), 2));
+            List<Long> history = histories.computeIfAbsent(user, u -> new ArrayList<>());
+            List<Long> recent = history.subList(Math.max(0, history.size() - window), history.size());
+            if (recent.contains(book)) {
+                continue;
+            }
+            for (Long other : recent) {
+                expected.merge(book + ":" + other, 1, Integer::sum);
+                expected.merge(other + ":" + book, 1, Integer::sum);
+            }
+            history.add(book);
+            matrix.recordBorrow(user, book);
+        }
+
+        Set<Long> books = new HashSet<>();
+        for (List<Long> history : histories.values()) {
+            books.addAll(history);
+        }
+        for (long book : books) {
+            int kept = 0;
+            for (long other : books) {
+                int count = matrix.getCoBorrowCount(book, other);
+                if (count > 0) {
+                    kept++;
+                    // pruning drops neighbours and restarts their count, so a kept count never exceeds the truth
+                    assertTrue(count <= expected.getOrDefault(book + ":" + other, 0));
+                }
+            }
+            assertTrue(kept <= maxNeighbours);
+            assertEquals(kept, matrix.similar(book, 100).size());
+        }
+        assertEquals(books.size(), matrix.getBookCount());
+        assertEquals(histories.size(), matrix.getUserCount());
+        assertTrue(matrix.estimatedBytes() > 0);
+    }
+
+    @Test
+    void rankingIsByCosineSimilarityNotRawCount() {
+        CoBorrowMatrix matrix = new CoBorrowMatrix();
+        long user = 1;
+        // book 2 is a bestseller co-borrowed with 1 twice; book 3 is niche and always borrowed with 1
+        for (int i = 0; i < 2; i++, user++) {
+            matrix.recordBorrow(user, 1);
+            matrix.recordBorrow(user, 2);
+        }
+        for (int i = 0; i < 50; i++, user++) {
+            matrix.recordBorrow(user, 2);
+        }
+        matrix.recordBorrow(user, 1);
+        matrix.recordBorrow(user, 3);
+
+        assertEquals(List.of(3L, 2L), matrix.similar(1, 5));
+    }
+}
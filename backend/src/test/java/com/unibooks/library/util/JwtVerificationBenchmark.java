@@ -0,0 +1,84 @@
+package com.unibooks.library.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a JWT. Not picked up by the default test
+ * run; run it explicitly with {@code mvn test -Dtest=JwtVerificationBenchmark}.
+ * {@code before} repeats what the filter used to do: four parses, each building
+ * its own key and parser. {@code afterUncached} is the first request with a
+ * token, {@code afterCached} every request after that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmarkSecretKeyLongEnoughForHmacSha256Signing";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 900_000);
+        token = jwtUtil.generateToken("benchmark-token", "reader@campus.edu", "USER", new Date());
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public void before(Blackhole blackhole) {
+        String email = legacyClaims(token).getSubject();
+        boolean valid = email.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+        blackhole.consume(valid);
+        blackhole.consume(legacyClaims(token).get("role", String.class));
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken afterUncached() {
+        return jwtUtil.parse(token);
+    }
+
+    @Benchmark
+    public JwtUtil.VerifiedToken afterCached() {
+        return jwtUtil.verify(token);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
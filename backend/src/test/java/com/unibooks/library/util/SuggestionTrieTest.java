@@ -0,0 +1,83 @@
+package com.unibooks.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    @Test
+    void returnsMostPopularEntriesUnderPrefix() {
+        SuggestionTrie trie = new SuggestionTrie(3);
+        trie.put("the hobbit", "The Hobbit", 40);
+        trie.put("the hunger games", "The Hunger Games", 90);
+        trie.put("the help", "The Help", 10);
+        trie.put("thinking fast and slow", "Thinking, Fast and Slow", 60);
+
+        assertEquals(List.of("The Hunger Games", "Thinking, Fast and Slow", "The Hobbit"), displays(trie.suggest("th", 10)));
+        assertEquals(List.of("The Hunger Games", "The Hobbit", "The Help"), displays(trie.suggest("the h", 10)));
+        assertEquals(List.of("The Hobbit"), displays(trie.suggest("the ho", 10)));
+        assertTrue(trie.suggest("x", 10).isEmpty());
+        assertTrue(trie.suggest("the hobbits", 10).isEmpty());
+    }
+
+    @Test
+    void keepsRankingsAndStructureConsistentUnderUpdates() {
+        SuggestionTrie trie = new SuggestionTrie(5);
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        String alphabet = "abc ";
+
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String k = key.toString();
+            if (random.nextInt(3) == 0) {
+                trie.remove(k);
+                expected.remove(k);
+            } else {
+                long score = random.nextInt(100);
+                trie.put(k, k, score);
+                expected.put(k, score);
+            }
+        }
+
+        assertEquals(expected.size(), trie.getEntryCount());
+        for (String prefix : List.of("", "a", "ab", "c a", "bb", "cab")) {
+            List<String> brute = expected.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .map(e -> SuggestionTrie.entry(e.getKey(), e.getKey(), e.getValue()))
+                    .sorted(SuggestionTrie.RANKING)
+                    .limit(5)
+                    .map(SuggestionTrie.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(brute, displays(trie.suggest(prefix, 5)), "prefix '" + prefix + "'");
+        }
+
+        SuggestionTrie rebuilt = new SuggestionTrie(5);
+        Map<String, SuggestionTrie.Entry> entries = new HashMap<>();
+        expected.forEach((k, v) -> entries.put(k, SuggestionTrie.entry(k, k, v)));
+        rebuilt.rebuild(entries);
+        assertEquals(rebuilt.getNodeCount(), trie.getNodeCount());
+        assertEquals(displays(rebuilt.suggest("a", 5)), displays(trie.suggest("a", 5)));
+    }
+
+    private static List<String> displays(List<SuggestionTrie.Entry> entries) {
+        List<String> result = new ArrayList<>();
+        for (SuggestionTrie.Entry entry : entries) {
+            result.add(entry.getDisplay());
+        }
+        return result;
+    }
+}
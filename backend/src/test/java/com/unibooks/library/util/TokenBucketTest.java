@@ -0,0 +1,91 @@
+package com.unibooks.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsABurstThenRefillsAtTheConfiguredRate() {
+        // 10 per minute: one token every 6 seconds
+        TokenBucket bucket = new TokenBucket(10, 60_000, 10);
+        AtomicLong state = bucket.newState(1_000);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, bucket.tryAcquire(state, 1_000));
+        }
+        assertEquals(6_000, bucket.tryAcquire(state, 1_000));
+        assertEquals(1, bucket.tryAcquire(state, 6_999));
+        assertEquals(0, bucket.tryAcquire(state, 7_000));
+        assertEquals(6_000, bucket.tryAcquire(state, 7_000));
+    }
+
+    @Test
+    void refillsExactlyUnderFrequentPollingAndNeverAboveTheBurst() {
+        TokenBucket bucket = new TokenBucket(10, 60_000, 3);
+        AtomicLong state = bucket.newState(0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(state, 0));
+        }
+
+        // refused attempts every millisecond must not lose the fractional refill
+        int granted = 0;
+        for (long now = 1; now <= 60_000; now++) {
+            if (bucket.tryAcquire(state, now) == 0) {
+                granted++;
+            }
+        }
+        assertEquals(10, granted);
+
+        long idle = 10 * 60_000;
+        int burst = 0;
+        while (bucket.tryAcquire(state, idle) == 0) {
+            burst++;
+        }
+        assertEquals(3, burst);
+    }
+
+    @Test
+    void concurrentCallersNeverTakeMoreThanTheBucketHolds() throws Exception {
+        TokenBucket bucket = new TokenBucket(100, 60_000, 100);
+        AtomicLong state = bucket.newState(0);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire(state, 0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    void rejectsConfigurationsThatDoNotFitThePackedState() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 60_000, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(7, 60_000, 1_000));
+    }
+}
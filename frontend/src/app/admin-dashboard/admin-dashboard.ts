@@ -5,8 +5,7 @@ import { AdminOverviewTabComponent } from './admin-overview-tab/admin-overview-t
 import { AdminManageBooksTabComponent } from './admin-manage-books-tab/admin-manage-books-tab';
 import { AdminManageLibrariansTabComponent } from './admin-manage-librarians-tab/admin-manage-librarians-tab';
 import { AdminManageUsersTabComponent } from './admin-manage-users-tab/admin-manage-users-tab';
-import { BookService } from '../services/book.service';
-import { UserService } from '../services/user.service';
+import { StatsService } from '../services/stats.service';
 
 @Component({
   selector: 'app-admin-dashboard',
@@ -34,8 +33,7 @@ export class AdminDashboardComponent implements OnInit {
 
   constructor(
     private router: Router,
-    private bookService: BookService,
-    private userService: UserService
+    private statsService: StatsService
   ) {}
 
   ngOnInit() {
@@ -57,23 +55,13 @@ export class AdminDashboardComponent implements OnInit {
   }
 
   loadStats() {
-    this.bookService.getAllBooks().subscribe({
-      next: (books) => {
-        this.stats.totalBooks = books.length;
+    this.statsService.getStats().subscribe({
+      next: (stats) => {
+        this.stats.totalBooks = stats.totalBooks;
+        this.stats.totalUsers = stats.students;
+        this.stats.totalLibrarians = stats.librarians;
       },
-      error: (error) => console.error('Error loading books:', error)
-    });
-
-    this.userService.getAllUsers().subscribe({
-      next: (users) => {
-        this.stats.totalUsers = users.filter((u: any) => 
-          u.role && u.role.toUpperCase() === 'USER'
-        ).length;
-        this.stats.totalLibrarians = users.filter((u: any) => 
-          u.role && u.role.toUpperCase() === 'LIBRARIAN'
-        ).length;
-      },
-      error: (error) => console.error('Error loading users:', error)
+      error: (error) => console.error('Error loading stats:', error)
     });
   }
 
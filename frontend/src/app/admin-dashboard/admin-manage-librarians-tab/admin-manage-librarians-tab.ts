@@ -17,6 +17,12 @@ export class AdminManageLibrariansTabComponent implements OnInit {
   librarians: any[] = [];
   filteredLibrarians: any[] = [];
   searchQuery: string = '';
+  nextCursor: string | null = null;
+  hasMore: boolean = false;
+  loading: boolean = false;
+  private searchTimer: any;
+  // only the latest request may update the list; a new search supersedes a pending load more
+  private requestSequence = 0;
   showAddLibrarianForm: boolean = false;
   showEditLibrarianForm: boolean = false;
   addLibrarianForm!: FormGroup;
@@ -86,33 +92,52 @@ export class AdminManageLibrariansTabComponent implements OnInit {
   }
 
   loadLibrarians() {
-    this.userService.getAllUsers().subscribe({
-      next: (response) => {
-        console.log('Users loaded:', response);
-        this.librarians = response.filter((user: any) => 
-          user.role && user.role.toUpperCase() === 'LIBRARIAN'
-        );
+    this.nextCursor = null;
+    this.fetchLibrarians();
+    this.userService.getUserCount('LIBRARIAN').subscribe({
+      next: (count) => this.librarianCountUpdated.emit(count)
+    });
+  }
+
+  loadMoreLibrarians() {
+    if (this.hasMore && !this.loading) {
+      this.fetchLibrarians();
+    }
+  }
+
+  private fetchLibrarians() {
+    const cursor = this.nextCursor;
+    const sequence = ++this.requestSequence;
+    this.loading = true;
+    this.userService.getUsersPage({ role: 'LIBRARIAN', q: this.searchQuery.trim() }, cursor ?? undefined).subscribe({
+      next: (page) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
+        this.librarians = cursor ? [...this.librarians, ...page.items] : page.items;
         this.filteredLibrarians = this.librarians;
-        this.librarianCountUpdated.emit(this.librarians.length);
+        this.nextCursor = page.nextCursor;
+        this.hasMore = page.hasMore;
       },
       error: (error) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
         console.error('Error loading librarians:', error);
         alert('Failed to load librarians. Please try again.');
       }
     });
   }
 
+  // name, email and mobile are matched by prefix on the server
   searchLibrarians() {
-    if (!this.searchQuery.trim()) {
-      this.filteredLibrarians = this.librarians;
-      return;
-    }
-
-    const query = this.searchQuery.toLowerCase();
-    this.filteredLibrarians = this.librarians.filter(librarian =>
-      librarian.name?.toLowerCase().includes(query) ||
-      librarian.email?.toLowerCase().includes(query)
-    );
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => {
+      this.nextCursor = null;
+      this.fetchLibrarians();
+    }, 250);
   }
 
   openAddLibrarianForm() {
@@ -18,6 +18,12 @@ export class AdminManageUsersTabComponent implements OnInit {
   users: any[] = [];
   filteredUsers: any[] = [];
   searchQuery: string = '';
+  nextCursor: string | null = null;
+  hasMore: boolean = false;
+  loading: boolean = false;
+  private searchTimer: any;
+  // only the latest request may update the list; a new search supersedes a pending load more
+  private requestSequence = 0;
   showAddUserForm: boolean = false;
   showEditUserForm: boolean = false;
   addUserForm!: FormGroup;
@@ -77,20 +83,39 @@ export class AdminManageUsersTabComponent implements OnInit {
   }
 
   loadUsers() {
-    console.log('loadUsers called');
-    this.userService.getAllUsers().subscribe({
-      next: (response) => {
-        console.log('All users loaded:', response);
-        console.log('Number of all users:', response.length);
-        this.users = response.filter((user: any) => 
-          user.role && user.role.toUpperCase() === 'USER'
-        );
-        console.log('Filtered USER role users:', this.users);
-        console.log('Number of USER role users:', this.users.length);
+    this.nextCursor = null;
+    this.fetchUsers();
+    this.userService.getUserCount('USER').subscribe({
+      next: (count) => this.userCountUpdated.emit(count)
+    });
+  }
+
+  loadMoreUsers() {
+    if (this.hasMore && !this.loading) {
+      this.fetchUsers();
+    }
+  }
+
+  private fetchUsers() {
+    const cursor = this.nextCursor;
+    const sequence = ++this.requestSequence;
+    this.loading = true;
+    this.userService.getUsersPage({ role: 'USER', q: this.searchQuery.trim() }, cursor ?? undefined).subscribe({
+      next: (page) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
+        this.users = cursor ? [...this.users, ...page.items] : page.items;
         this.filteredUsers = this.users;
-        this.userCountUpdated.emit(this.users.length);
+        this.nextCursor = page.nextCursor;
+        this.hasMore = page.hasMore;
       },
       error: (error) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
         console.error('Error loading users:', error);
         if (typeof window !== 'undefined') {
           alert('Failed to load users. Please try again.');
@@ -99,17 +124,13 @@ export class AdminManageUsersTabComponent implements OnInit {
     });
   }
 
+  // name, email and mobile are matched by prefix on the server
   searchUsers() {
-    if (!this.searchQuery.trim()) {
-      this.filteredUsers = this.users;
-      return;
-    }
-
-    const query = this.searchQuery.toLowerCase();
-    this.filteredUsers = this.users.filter(user =>
-      user.name?.toLowerCase().includes(query) ||
-      user.email?.toLowerCase().includes(query)
-    );
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => {
+      this.nextCursor = null;
+      this.fetchUsers();
+    }, 250);
   }
 
   openAddUserForm() {
@@ -1,6 +1,7 @@
 import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
+import { Observable, map } from 'rxjs';
 import { BookService } from '../../services/book.service';
 import { BorrowService } from '../../services/borrow.service';
 
@@ -14,15 +15,15 @@ import { BorrowService } from '../../services/borrow.service';
 export class BrowseBooksTabComponent implements OnInit {
 
     books: any[] = [];
-    filteredBooks: any[] = [];
-    paginatedBooks: any[] = [];
     searchTerm: string = '';
     loading: boolean = false;
     errorMessage: string = '';
 
-    currentPage: number = 1;
-    itemsPerPage: number = 12;
-    totalPages: number = 1;
+    nextCursor: string | null = null;
+    hasMore: boolean = false;
+    private searchTimer: any;
+    // only the latest request may update the grid; a new search supersedes a pending load more
+    private requestSequence = 0;
 
     selectedBook: any = null;
     showBookDetails: boolean = false;
@@ -42,18 +43,41 @@ export class BrowseBooksTabComponent implements OnInit {
     }
 
     loadBooks() {
+        this.nextCursor = null;
+        this.fetchBooks();
+    }
+
+    loadMoreBooks() {
+        if (this.hasMore && !this.loading) {
+            this.fetchBooks();
+        }
+    }
+
+    private fetchBooks() {
+        const cursor = this.nextCursor;
+        const sequence = ++this.requestSequence;
+        const query = this.searchTerm.trim();
         this.loading = true;
         this.errorMessage = '';
 
-        this.bookService.getAllBooks().subscribe({
-            next: (response) => {
-                console.log('Books loaded:', response);
-                this.books = response;
-                this.filteredBooks = response;
-                this.updatePagination();
+        // a search returns the best matches in one list; browsing pages through the catalog by title
+        const request: Observable<any> = query
+            ? this.bookService.searchBooks(query).pipe(map((books) => ({ items: books, nextCursor: null, hasMore: false })))
+            : this.bookService.getBooksPage('title', 'asc', cursor ?? undefined, 12);
+        request.subscribe({
+            next: (page) => {
+                if (sequence !== this.requestSequence) {
+                    return;
+                }
+                this.books = cursor ? [...this.books, ...page.items] : page.items;
+                this.nextCursor = page.nextCursor;
+                this.hasMore = page.hasMore;
                 this.loading = false;
             },
             error: (error) => {
+                if (sequence !== this.requestSequence) {
+                    return;
+                }
                 console.error('Error loading books:', error);
                 this.errorMessage = 'Failed to load books. Please try again.';
                 this.loading = false;
@@ -62,62 +86,17 @@ export class BrowseBooksTabComponent implements OnInit {
     }
 
     onSearch() {
-        this.currentPage = 1;
-        this.filterBooks();
-    }
-
-    filterBooks() {
-        this.filteredBooks = this.books.filter(book => {
-            const matchesSearch = !this.searchTerm ||
-                book.title.toLowerCase().includes(this.searchTerm.toLowerCase()) ||
-                book.author.toLowerCase().includes(this.searchTerm.toLowerCase()) ||
-                book.isbn.toLowerCase().includes(this.searchTerm.toLowerCase());
-            return matchesSearch;
-        });
-        this.updatePagination();
+        clearTimeout(this.searchTimer);
+        this.searchTimer = setTimeout(() => this.loadBooks(), 250);
     }
 
-    updatePagination() {
-        this.totalPages = Math.ceil(this.filteredBooks.length / this.itemsPerPage);
-        if (this.currentPage > this.totalPages) {
-            this.currentPage = Math.max(1, this.totalPages);
-        }
-        
-        const startIndex = (this.currentPage - 1) * this.itemsPerPage;
-        const endIndex = startIndex + this.itemsPerPage;
-        this.paginatedBooks = this.filteredBooks.slice(startIndex, endIndex);
-    }
-    
-    goToPage(page: number) {
-        if (page >= 1 && page <= this.totalPages) {
-            this.currentPage = page;
-            this.updatePagination();
-            document.querySelector('.books-grid')?.scrollIntoView({ behavior: 'smooth', block: 'start' });
-        }
-    }
-    
-    getPageNumbers(): number[] {
-        const pages: number[] = [];
-        const maxVisiblePages = 5;
-        
-        if (this.totalPages <= maxVisiblePages) {
-            for (let i = 1; i <= this.totalPages; i++) {
-                pages.push(i);
+    // refreshes one card without losing the pages loaded so far
+    private refreshBook(bookId: number) {
+        this.bookService.getBookById(bookId).subscribe({
+            next: (book) => {
+                this.books = this.books.map(existing => existing.id === book.id ? book : existing);
             }
-        } else {
-            let start = Math.max(1, this.currentPage - 2);
-            let end = Math.min(this.totalPages, start + maxVisiblePages - 1);
-            
-            if (end - start < maxVisiblePages - 1) {
-                start = Math.max(1, end - maxVisiblePages + 1);
-            }
-            
-            for (let i = start; i <= end; i++) {
-                pages.push(i);
-            }
-        }
-        
-        return pages;
+        });
     }
 
     openBookDetails(book: any) {
@@ -172,7 +151,7 @@ export class BrowseBooksTabComponent implements OnInit {
                 console.log('Borrow request sent successfully:', response);
                 this.borrowSuccess = `Borrow request sent for "${this.selectedBook.title}"! The librarian will review your request.`;
                 this.borrowing = false;
-                this.loadBooks();
+                this.refreshBook(borrowRequest.bookId);
                 setTimeout(() => {
                     this.closeBookDetails();
                 }, 2000);
@@ -1,14 +1,20 @@
 import { HttpInterceptorFn } from '@angular/common/http';
 import { inject } from '@angular/core';
 import { SessionService } from '../services/session.service';
-import { catchError, throwError } from 'rxjs';
+import { AuthService } from '../services/auth.service';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { Router } from '@angular/router';
 
+const AUTH_ENDPOINTS = ['/api/auth/login', '/api/auth/register', '/api/auth/refresh', '/api/auth/logout'];
+
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
     const sessionService = inject(SessionService);
+    const authService = inject(AuthService);
     const router = inject(Router);
     sessionService.updateLastActivity();
     const token = sessionService.getToken();
+    const original = req;
+    const isAuthEndpoint = AUTH_ENDPOINTS.some(endpoint => req.url.includes(endpoint));
     if (token && !req.url.includes('/api/auth/login') && !req.url.includes('/api/auth/register')) {
         req = req.clone({
             setHeaders: {
@@ -16,13 +22,28 @@ export const authInterceptor: HttpInterceptorFn = (req, next) => {
             }
         });
     }
+    const signOut = (error: any) => {
+        sessionService.clearSession();
+        router.navigate(['/login']);
+        return throwError(() => error);
+    };
     return next(req).pipe(
         catchError((error) => {
-            if (error.status === 401) {
-                sessionService.clearSession();
-                router.navigate(['/login']);
+            if (error.status !== 401 || isAuthEndpoint) {
+                return throwError(() => error);
+            }
+            // access tokens are short-lived: renew once and retry before giving up on the session
+            if (!sessionService.getRefreshToken()) {
+                return signOut(error);
             }
-            return throwError(() => error);
+            return authService.refreshToken().pipe(
+                catchError(() => signOut(error)),
+                switchMap(() => next(original.clone({
+                    setHeaders: {
+                        Authorization: `Bearer ${sessionService.getToken()}`
+                    }
+                })))
+            );
         })
     );
 };
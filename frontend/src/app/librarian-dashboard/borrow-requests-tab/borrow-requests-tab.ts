@@ -2,6 +2,7 @@ import { Component, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { BorrowService } from '../../services/borrow.service';
+import { StatsService } from '../../services/stats.service';
 
 @Component({
     selector: 'app-borrow-requests-tab',
@@ -12,8 +13,9 @@ import { BorrowService } from '../../services/borrow.service';
 })
 export class BorrowRequestsTabComponent implements OnInit {
     
-    allBorrows: any[] = [];
+    borrows: any[] = [];
     filteredBorrows: any[] = [];
+    stats: any = null;
     loading: boolean = false;
     errorMessage: string = '';
     successMessage: string = '';
@@ -21,10 +23,10 @@ export class BorrowRequestsTabComponent implements OnInit {
     filterStatus: string = 'all';
     searchTerm: string = '';
     
-    currentPage: number = 1;
-    itemsPerPage: number = 10;
-    totalPages: number = 1;
-    paginatedBorrows: any[] = [];
+    nextCursor: string | null = null;
+    hasMore: boolean = false;
+    // only the latest request may update the list; a new filter supersedes a pending load more
+    private requestSequence = 0;
 
     selectedBorrow: any = null;
     showDetailsModal: boolean = false;
@@ -37,34 +39,85 @@ export class BorrowRequestsTabComponent implements OnInit {
     showReturnModal: boolean = false;
     borrowToReturn: any = null;
 
-    constructor(private borrowService: BorrowService) { }
+    constructor(
+        private borrowService: BorrowService,
+        private statsService: StatsService
+    ) { }
 
     ngOnInit() {
         this.loadBorrowRecords();
     }
 
     loadBorrowRecords() {
+        this.nextCursor = null;
+        this.fetchBorrows();
+        this.statsService.getStats().subscribe({
+            next: (stats) => this.stats = stats
+        });
+    }
+
+    loadMoreBorrows() {
+        if (this.hasMore && !this.loading) {
+            this.fetchBorrows();
+        }
+    }
+
+    private fetchBorrows() {
+        const cursor = this.nextCursor;
+        const sequence = ++this.requestSequence;
         this.loading = true;
         this.errorMessage = '';
         
-        this.borrowService.getAllBorrows().subscribe({
-            next: (response) => {
-                
-                this.allBorrows = response.map((borrow: any) => ({
+        this.borrowService.searchBorrows(this.statusFilters(), cursor ?? undefined).subscribe({
+            next: (page) => {
+                if (sequence !== this.requestSequence) {
+                    return;
+                }
+                const items = page.items.map((borrow: any) => ({
                     ...borrow,
                     isOverdue: this.checkIfOverdue(borrow)
                 }));
+                this.borrows = cursor ? [...this.borrows, ...items] : items;
+                this.nextCursor = page.nextCursor;
+                this.hasMore = page.hasMore;
                 this.applyFilters();
                 this.loading = false;
             },
             error: (error) => {
-                
+                if (sequence !== this.requestSequence) {
+                    return;
+                }
                 this.errorMessage = 'Failed to load borrow records. Please try again.';
                 this.loading = false;
             }
         });
     }
 
+    // the status filter runs on the server, newest borrows first
+    private statusFilters(): any {
+        const now = this.localNow();
+        switch (this.filterStatus) {
+            case 'pending':
+                return { status: ['PENDING'] };
+            case 'active':
+                return { status: ['BORROWED'], dueFrom: now };
+            case 'overdue':
+                return { status: ['BORROWED', 'OVERDUE'], dueTo: now };
+            case 'returned':
+                return { status: ['RETURNED'] };
+            case 'rejected':
+                return { status: ['REJECTED'] };
+            default:
+                return {};
+        }
+    }
+
+    // the server compares against its local time, without a zone
+    private localNow(): string {
+        const now = new Date();
+        return new Date(now.getTime() - now.getTimezoneOffset() * 60000).toISOString().slice(0, 19);
+    }
+
     checkIfOverdue(borrow: any): boolean {
         if (borrow.status === 'RETURNED') return false;
         const dueDate = new Date(borrow.dueDate);
@@ -72,78 +125,24 @@ export class BorrowRequestsTabComponent implements OnInit {
         return today > dueDate;
     }
 
+    // the search box narrows the records loaded so far
     applyFilters() {
-        this.filteredBorrows = this.allBorrows.filter(borrow => {
-
-            const matchesStatus = this.filterStatus === 'all' || 
-                                  (this.filterStatus === 'pending' && borrow.status === 'PENDING') ||
-                                  (this.filterStatus === 'active' && borrow.status === 'BORROWED' && !borrow.isOverdue) ||
-                                  (this.filterStatus === 'overdue' && borrow.isOverdue) ||
-                                  (this.filterStatus === 'returned' && borrow.status === 'RETURNED') ||
-                                  (this.filterStatus === 'rejected' && borrow.status === 'REJECTED');
-
-            const matchesSearch = !this.searchTerm ||
-                                  borrow.bookTitle.toLowerCase().includes(this.searchTerm.toLowerCase()) ||
-                                  borrow.userName.toLowerCase().includes(this.searchTerm.toLowerCase()) ||
-                                  borrow.userEmail.toLowerCase().includes(this.searchTerm.toLowerCase());
-
-            return matchesStatus && matchesSearch;
-        });
-
-        this.currentPage = 1;
-        this.updatePagination();
+        const term = this.searchTerm.toLowerCase();
+        this.filteredBorrows = this.borrows.filter(borrow => !term ||
+            borrow.bookTitle.toLowerCase().includes(term) ||
+            borrow.userName.toLowerCase().includes(term) ||
+            borrow.userEmail.toLowerCase().includes(term));
     }
 
     onFilterChange() {
-        this.applyFilters();
+        this.nextCursor = null;
+        this.fetchBorrows();
     }
 
     onSearch() {
         this.applyFilters();
     }
 
-    updatePagination() {
-        this.totalPages = Math.ceil(this.filteredBorrows.length / this.itemsPerPage);
-        if (this.currentPage > this.totalPages && this.totalPages > 0) {
-            this.currentPage = this.totalPages;
-        }
-        
-        const startIndex = (this.currentPage - 1) * this.itemsPerPage;
-        const endIndex = startIndex + this.itemsPerPage;
-        this.paginatedBorrows = this.filteredBorrows.slice(startIndex, endIndex);
-    }
-
-    goToPage(page: number) {
-        if (page >= 1 && page <= this.totalPages) {
-            this.currentPage = page;
-            this.updatePagination();
-        }
-    }
-
-    getPageNumbers(): number[] {
-        const pages: number[] = [];
-        const maxVisiblePages = 5;
-        
-        if (this.totalPages <= maxVisiblePages) {
-            for (let i = 1; i <= this.totalPages; i++) {
-                pages.push(i);
-            }
-        } else {
-            let start = Math.max(1, this.currentPage - 2);
-            let end = Math.min(this.totalPages, start + maxVisiblePages - 1);
-            
-            if (end - start < maxVisiblePages - 1) {
-                start = Math.max(1, end - maxVisiblePages + 1);
-            }
-            
-            for (let i = start; i <= end; i++) {
-                pages.push(i);
-            }
-        }
-        
-        return pages;
-    }
-
     viewDetails(borrow: any) {
         this.selectedBorrow = borrow;
         this.showDetailsModal = true;
@@ -189,19 +188,19 @@ export class BorrowRequestsTabComponent implements OnInit {
     }
 
     getActiveBorrowsCount(): number {
-        return this.allBorrows.filter(b => b.status === 'BORROWED' && !b.isOverdue).length;
+        return this.stats?.activeBorrows ?? 0;
     }
 
     getPendingRequestsCount(): number {
-        return this.allBorrows.filter(b => b.status === 'PENDING').length;
+        return this.stats?.pendingRequests ?? 0;
     }
 
     getOverdueBorrowsCount(): number {
-        return this.allBorrows.filter(b => b.isOverdue).length;
+        return this.stats?.overdueBorrows ?? 0;
     }
 
     getReturnedBorrowsCount(): number {
-        return this.allBorrows.filter(b => b.status === 'RETURNED').length;
+        return this.stats?.returnedBorrows ?? 0;
     }
 
     refreshData() {
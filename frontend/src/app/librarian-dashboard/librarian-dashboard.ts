@@ -1,13 +1,13 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { Router, RouterModule } from '@angular/router';
 import { OverviewTabComponent } from './overview-tab/overview-tab';
 import { ManageBooksTabComponent } from './manage-books-tab/manage-books-tab';
 import { ManageUsersTabComponent } from './manage-users-tab/manage-users-tab';
 import { BorrowRequestsTabComponent } from './borrow-requests-tab/borrow-requests-tab';
-import { BorrowService } from '../services/borrow.service';
-import { BookService } from '../services/book.service';
-import { UserService } from '../services/user.service';
+import { StatsService } from '../services/stats.service';
+import { EventsService } from '../services/events.service';
+import { Subscription } from 'rxjs';
 
 @Component({
   selector: 'app-librarian-dashboard',
@@ -23,8 +23,9 @@ import { UserService } from '../services/user.service';
   templateUrl: './librarian-dashboard.html',
   styleUrls: ['./librarian-dashboard.css']
 })
-export class LibrarianDashboardComponent implements OnInit {
+export class LibrarianDashboardComponent implements OnInit, OnDestroy {
   user: any = null;
+  private eventsSubscription?: Subscription;
   activeTab: string = 'overview';
   
   stats = {
@@ -36,9 +37,8 @@ export class LibrarianDashboardComponent implements OnInit {
 
   constructor(
     private router: Router,
-    private borrowService: BorrowService,
-    private bookService: BookService,
-    private userService: UserService
+    private eventsService: EventsService,
+    private statsService: StatsService
   ) {}
 
   ngOnInit() {
@@ -54,66 +54,33 @@ export class LibrarianDashboardComponent implements OnInit {
         return;
       }
       this.loadStats();
+      this.listenForChanges();
     } else {
       this.router.navigate(['/login']);
       return;
     }
   }
 
-  loadStats() {
-    this.loadBooksCount();
-    this.loadUsersCount();
-    this.loadIssuedBooksCount();
-    this.loadPendingRequestsCount();
+  ngOnDestroy() {
+    this.eventsSubscription?.unsubscribe();
   }
 
-  loadBooksCount() {
-    this.bookService.getAllBooks().subscribe({
-      next: (books) => {
-        this.stats.totalBooks = books.length;
-      },
-      error: (error) => {
-        
+  // counts are refreshed when the server reports a change instead of on a timer
+  listenForChanges() {
+    this.eventsSubscription = this.eventsService.events().subscribe(event => {
+      if (event.type !== 'AVAILABILITY_CHANGED' && event.type !== 'HOLD_READY') {
+        this.loadStats();
       }
     });
   }
 
-  loadUsersCount() {
-    this.userService.getAllUsers().subscribe({
-      next: (users) => {
-        this.stats.totalUsers = users.filter((u: any) => 
-          u.role && u.role.toUpperCase() === 'USER'
-        ).length;
-      },
-      error: (error) => {
-        
-      }
-    });
-  }
-
-  loadIssuedBooksCount() {
-    this.borrowService.getAllBorrows().subscribe({
-      next: (records: any) => {
-        // Count all books that are currently issued (not yet returned)
-        // We check for status 'BORROWED', 'ACTIVE', or 'APPROVED' and make sure returnDate is not set
-        this.stats.issuedBooks = records.filter((r: any) => {
-          if (!r.status) return false;
-          const status = r.status.toUpperCase();
-          const isIssued = status === 'BORROWED' || status === 'ACTIVE' || status === 'APPROVED';
-          const notReturned = !r.returnDate;
-          return isIssued && notReturned;
-        }).length;
-      },
-      error: (error: any) => {
-        
-      }
-    });
-  }
-
-  loadPendingRequestsCount() {
-    this.borrowService.getPendingRequests().subscribe({
-      next: (requests) => {
-        this.stats.pendingRequests = requests.length;
+  loadStats() {
+    this.statsService.getStats().subscribe({
+      next: (stats) => {
+        this.stats.totalBooks = stats.totalBooks;
+        this.stats.totalUsers = stats.students;
+        this.stats.issuedBooks = stats.activeBorrows + stats.overdueBorrows;
+        this.stats.pendingRequests = stats.pendingRequests;
       },
       error: (error) => {
         
@@ -124,7 +91,7 @@ export class LibrarianDashboardComponent implements OnInit {
   setActiveTab(tab: string) {
     this.activeTab = tab;
     if (tab === 'requests') {
-      this.loadPendingRequestsCount();
+      this.loadStats();
     }
   }
 
@@ -2,7 +2,9 @@ import { Component, OnInit, Output, EventEmitter } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { Router } from '@angular/router';
+import { Observable, map } from 'rxjs';
 import { BookService } from '../../services/book.service';
+import { StatsService } from '../../services/stats.service';
 
 @Component({
   selector: 'app-manage-books-tab',
@@ -20,6 +22,12 @@ export class ManageBooksTabComponent implements OnInit {
   books: any[] = [];
   filteredBooks: any[] = [];
   searchQuery: string = '';
+  nextCursor: string | null = null;
+  hasMore: boolean = false;
+  loading: boolean = false;
+  private searchTimer: any;
+  // only the latest request may update the list; a new search supersedes a pending load more
+  private requestSequence = 0;
   showAddBookForm: boolean = false;
   showEditBookForm: boolean = false;
   currentBook: any = {
@@ -35,6 +43,7 @@ export class ManageBooksTabComponent implements OnInit {
 
   constructor(
     private bookService: BookService,
+    private statsService: StatsService,
     private router: Router
   ) {}
 
@@ -43,15 +52,42 @@ export class ManageBooksTabComponent implements OnInit {
   }
 
   loadBooks() {
-    this.bookService.getAllBooks().subscribe({
-      next: (response) => {
-        
-        this.books = response;
-        this.filteredBooks = response;
-        this.bookCountUpdated.emit(response.length);
+    this.nextCursor = null;
+    this.fetchBooks();
+    this.emitBookCount();
+  }
+
+  loadMoreBooks() {
+    if (this.hasMore && !this.loading) {
+      this.fetchBooks();
+    }
+  }
+
+  private fetchBooks() {
+    const cursor = this.nextCursor;
+    const sequence = ++this.requestSequence;
+    const query = this.searchQuery.trim();
+    this.loading = true;
+    // a search returns the best matches in one list; browsing pages through the catalog by title
+    const request: Observable<any> = query
+      ? this.bookService.searchBooks(query).pipe(map((books) => ({ items: books, nextCursor: null, hasMore: false })))
+      : this.bookService.getBooksPage('title', 'asc', cursor ?? undefined);
+    request.subscribe({
+      next: (page) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
+        this.books = cursor ? [...this.books, ...page.items] : page.items;
+        this.filteredBooks = this.books;
+        this.nextCursor = page.nextCursor;
+        this.hasMore = page.hasMore;
       },
       error: (error) => {
-        
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
         if (error.status === 401 || error.status === 403) {
           alert('Session expired. Please login again.');
           if (typeof window !== 'undefined') {
@@ -66,18 +102,18 @@ export class ManageBooksTabComponent implements OnInit {
     });
   }
 
+  private emitBookCount() {
+    this.statsService.getStats().subscribe({
+      next: (stats) => this.bookCountUpdated.emit(stats.totalBooks)
+    });
+  }
+
   searchBooks() {
-    if (!this.searchQuery.trim()) {
-      this.filteredBooks = this.books;
-    } else {
-      const query = this.searchQuery.toLowerCase();
-      this.filteredBooks = this.books.filter(book =>
-        book.title.toLowerCase().includes(query) ||
-        book.author.toLowerCase().includes(query) ||
-        book.isbn.toLowerCase().includes(query) ||
-        book.category.toLowerCase().includes(query)
-      );
-    }
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => {
+      this.nextCursor = null;
+      this.fetchBooks();
+    }, 250);
   }
 
   openAddBookForm() {
@@ -165,7 +201,7 @@ export class ManageBooksTabComponent implements OnInit {
         this.books = this.books.filter(book => book.id !== bookId);
         this.filteredBooks = this.filteredBooks.filter(book => book.id !== bookId);
         alert('Book deleted successfully!');
-        this.bookCountUpdated.emit(this.books.length);
+        this.emitBookCount();
       },
       error: (error) => {
         
@@ -173,7 +209,7 @@ export class ManageBooksTabComponent implements OnInit {
           this.books = this.books.filter(book => book.id !== bookId);
           this.filteredBooks = this.filteredBooks.filter(book => book.id !== bookId);
           alert('Book deleted successfully!');
-          this.bookCountUpdated.emit(this.books.length);
+          this.emitBookCount();
         } else {
           alert('Failed to delete book. Please try again.');
         }
@@ -17,6 +17,12 @@ export class ManageUsersTabComponent implements OnInit {
   users: any[] = [];
   filteredUsers: any[] = [];
   searchUserQuery: string = '';
+  nextCursor: string | null = null;
+  hasMore: boolean = false;
+  loading: boolean = false;
+  private searchTimer: any;
+  // only the latest request may update the list; a new search supersedes a pending load more
+  private requestSequence = 0;
   showAddUserForm: boolean = false;
   currentUser: any = {
     name: '',
@@ -37,15 +43,39 @@ export class ManageUsersTabComponent implements OnInit {
   }
 
   loadUsers() {
-    this.userService.getAllUsers().subscribe({
-      next: (response) => {
-        
-        this.users = response.filter((user: any) => user.role === 'USER');
+    this.nextCursor = null;
+    this.fetchUsers();
+    this.userService.getUserCount('USER').subscribe({
+      next: (count) => this.userCountUpdated.emit(count)
+    });
+  }
+
+  loadMoreUsers() {
+    if (this.hasMore && !this.loading) {
+      this.fetchUsers();
+    }
+  }
+
+  private fetchUsers() {
+    const cursor = this.nextCursor;
+    const sequence = ++this.requestSequence;
+    this.loading = true;
+    this.userService.getUsersPage({ role: 'USER', q: this.searchUserQuery.trim() }, cursor ?? undefined).subscribe({
+      next: (page) => {
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
+        this.users = cursor ? [...this.users, ...page.items] : page.items;
         this.filteredUsers = this.users;
-        this.userCountUpdated.emit(this.users.length);
+        this.nextCursor = page.nextCursor;
+        this.hasMore = page.hasMore;
       },
       error: (error) => {
-        
+        if (sequence !== this.requestSequence) {
+          return;
+        }
+        this.loading = false;
         if (error.status === 401 || error.status === 403) {
           alert('Session expired. Please login again.');
           if (typeof window !== 'undefined') {
@@ -60,17 +90,13 @@ export class ManageUsersTabComponent implements OnInit {
     });
   }
 
+  // name, email and mobile are matched by prefix on the server
   searchUsers() {
-    if (!this.searchUserQuery.trim()) {
-      this.filteredUsers = this.users;
-    } else {
-      const query = this.searchUserQuery.toLowerCase();
-      this.filteredUsers = this.users.filter(user =>
-        user.name.toLowerCase().includes(query) ||
-        user.email.toLowerCase().includes(query) ||
-        user.gender.toLowerCase().includes(query)
-      );
-    }
+    clearTimeout(this.searchTimer);
+    this.searchTimer = setTimeout(() => {
+      this.nextCursor = null;
+      this.fetchUsers();
+    }, 250);
   }
 
   openAddUserForm() {
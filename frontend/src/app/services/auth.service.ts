@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, tap } from 'rxjs';
+import { Observable, finalize, shareReplay, tap } from 'rxjs';
 import { SessionService } from './session.service';
 import { Router } from '@angular/router';
 
@@ -9,6 +9,7 @@ import { Router } from '@angular/router';
 })
 export class AuthService {
   private apiUrl = 'http://localhost:8080/api/auth';
+  private refreshInFlight: Observable<any> | null = null;
 
   constructor(
     private http: HttpClient,
@@ -21,6 +22,7 @@ export class AuthService {
       tap((response: any) => {
         if (response && response.token) {
           this.sessionService.setSession(response.token, response);
+          this.sessionService.setRefreshToken(response.refreshToken);
         }
       })
     );
@@ -31,6 +33,7 @@ export class AuthService {
       tap((response: any) => {
         if (response && response.token) {
           this.sessionService.setSession(response.token, response);
+          this.sessionService.setRefreshToken(response.refreshToken);
         }
       })
     );
@@ -38,7 +41,7 @@ export class AuthService {
 
   logout(): Observable<any> {
     return this.http.post(`${this.apiUrl}/logout`, {}).pipe(
-      tap(() => {
+      finalize(() => {
         this.sessionService.clearSession();
         this.router.navigate(['/login']);
       })
@@ -49,15 +52,23 @@ export class AuthService {
     return this.http.get(`${this.apiUrl}/validate`);
   }
 
+  // concurrent callers share one request: refresh tokens are single-use, so a second exchange would end the session
   refreshToken(): Observable<any> {
-    return this.http.post(`${this.apiUrl}/refresh`, {}).pipe(
-      tap((response: any) => {
-        if (response && response.token) {
-          const userData = this.sessionService.getUserData();
-          this.sessionService.setSession(response.token, { ...userData, ...response });
-        }
-      })
-    );
+    if (!this.refreshInFlight) {
+      const refreshToken = this.sessionService.getRefreshToken();
+      this.refreshInFlight = this.http.post(`${this.apiUrl}/refresh`, { refreshToken }).pipe(
+        tap((response: any) => {
+          if (response && response.token) {
+            const userData = this.sessionService.getUserData();
+            this.sessionService.setSession(response.token, { ...userData, ...response });
+            this.sessionService.setRefreshToken(response.refreshToken);
+          }
+        }),
+        finalize(() => this.refreshInFlight = null),
+        shareReplay(1)
+      );
+    }
+    return this.refreshInFlight;
   }
 
   isLoggedIn(): boolean {
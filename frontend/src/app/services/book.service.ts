@@ -29,10 +29,26 @@ export class BookService {
     return this.http.get(this.apiUrl, { headers: this.getHeaders() });
   }
 
+  getBooksPage(sort: string = 'title', direction: string = 'asc', cursor?: string, size: number = 20): Observable<any> {
+    let url = `${this.apiUrl}/page?sort=${sort}&direction=${direction}&size=${size}`;
+    if (cursor) {
+      url += `&cursor=${encodeURIComponent(cursor)}`;
+    }
+    return this.http.get(url, { headers: this.getHeaders() });
+  }
+
+  searchBooks(q: string, limit: number = 100): Observable<any> {
+    return this.http.get(`${this.apiUrl}/search?q=${encodeURIComponent(q)}&limit=${limit}`, { headers: this.getHeaders() });
+  }
+
   getBookById(id: number): Observable<any> {
     return this.http.get(`${this.apiUrl}/${id}`, { headers: this.getHeaders() });
   }
 
+  getSimilarBooks(id: number, limit: number = 10): Observable<any> {
+    return this.http.get(`${this.apiUrl}/${id}/similar?limit=${limit}`, { headers: this.getHeaders() });
+  }
+
   addBook(bookData: any): Observable<any> {
     
     return this.http.post(this.apiUrl, bookData, { headers: this.getHeaders() });
@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Observable, retry, throwError, timer } from 'rxjs';
 
 @Injectable({
     providedIn: 'root'
@@ -22,10 +22,25 @@ export class BorrowService {
         });
     }
 
+    // one key per user action, so retries after a dropped connection are replayed rather than re-run
+    private getIdempotentHeaders(): HttpHeaders {
+        const key = typeof crypto !== 'undefined' && 'randomUUID' in crypto
+            ? crypto.randomUUID()
+            : `${Date.now()}-${Math.random().toString(36).slice(2)}`;
+        return this.getAuthHeaders().set('Idempotency-Key', key);
+    }
+
+    private retryOnNetworkError<T>(request: Observable<T>): Observable<T> {
+        return request.pipe(retry({
+            count: 2,
+            delay: (error) => error.status === 0 ? timer(500) : throwError(() => error)
+        }));
+    }
+
     borrowBook(borrowRequest: any): Observable<any> {
-        return this.http.post(`${this.apiUrl}/borrow`, borrowRequest, {
-            headers: this.getAuthHeaders()
-        });
+        return this.retryOnNetworkError(this.http.post(`${this.apiUrl}/borrow`, borrowRequest, {
+            headers: this.getIdempotentHeaders()
+        }));
     }
 
     returnBook(borrowId: number): Observable<any> {
@@ -33,9 +48,9 @@ export class BorrowService {
             borrowRecordId: borrowId,
             reportDamage: false
         };
-        return this.http.post(`${this.apiUrl}/return`, returnRequest, {
-            headers: this.getAuthHeaders()
-        });
+        return this.retryOnNetworkError(this.http.post(`${this.apiUrl}/return`, returnRequest, {
+            headers: this.getIdempotentHeaders()
+        }));
     }
 
     getUserBorrows(userId: number): Observable<any> {
@@ -56,6 +71,26 @@ export class BorrowService {
         });
     }
 
+    searchBorrows(filters: any = {}, cursor?: string, size: number = 20): Observable<any> {
+        const params: string[] = [`size=${size}`];
+        for (const key of Object.keys(filters)) {
+            const value = filters[key];
+            if (value === null || value === undefined || value === '') {
+                continue;
+            }
+            const values = Array.isArray(value) ? value : [value];
+            for (const item of values) {
+                params.push(`${key}=${encodeURIComponent(item)}`);
+            }
+        }
+        if (cursor) {
+            params.push(`cursor=${encodeURIComponent(cursor)}`);
+        }
+        return this.http.get(`${this.apiUrl}/search?${params.join('&')}`, {
+            headers: this.getAuthHeaders()
+        });
+    }
+
     getActiveBorrows(): Observable<any> {
         return this.http.get(`${this.apiUrl}/active`, {
             headers: this.getAuthHeaders()
@@ -81,9 +116,9 @@ export class BorrowService {
     }
 
     approveBorrowRequest(borrowRecordId: number): Observable<any> {
-        return this.http.post(`${this.apiUrl}/approve/${borrowRecordId}`, {}, {
-            headers: this.getAuthHeaders()
-        });
+        return this.retryOnNetworkError(this.http.post(`${this.apiUrl}/approve/${borrowRecordId}`, {}, {
+            headers: this.getIdempotentHeaders()
+        }));
     }
 
     rejectBorrowRequest(borrowRecordId: number, reason?: string): Observable<any> {
@@ -0,0 +1,74 @@
+import { Injectable, NgZone } from '@angular/core';
+import { Observable } from 'rxjs';
+import { AuthService } from './auth.service';
+
+export interface LibraryEvent {
+    type: string;
+    borrowRecordId?: number;
+    userId?: number;
+    bookId?: number;
+    occurredAt?: string;
+}
+
+const EVENT_TYPES = [
+    'BORROW_REQUESTED',
+    'BORROW_APPROVED',
+    'BORROW_REJECTED',
+    'BOOK_RETURNED',
+    'AVAILABILITY_CHANGED',
+    'HOLD_READY',
+    'RESYNC'
+];
+
+@Injectable({
+    providedIn: 'root'
+})
+export class EventsService {
+
+    private apiUrl = 'http://localhost:8080/api/events';
+
+    constructor(private zone: NgZone, private authService: AuthService) { }
+
+    // RESYNC means events were dropped for this tab; listeners should reload their data
+    events(): Observable<LibraryEvent> {
+        return new Observable<LibraryEvent>(subscriber => {
+            if (typeof window === 'undefined' || typeof EventSource === 'undefined') {
+                return;
+            }
+            let source: EventSource;
+            let closed = false;
+            let renewed = false;
+            const open = () => {
+                const token = localStorage.getItem('token') || '';
+                source = new EventSource(`${this.apiUrl}?token=${encodeURIComponent(token)}`);
+                for (const type of EVENT_TYPES) {
+                    source.addEventListener(type, (message: MessageEvent) => {
+                        const event: LibraryEvent = message.data ? JSON.parse(message.data) : { type };
+                        event.type = type;
+                        this.zone.run(() => subscriber.next(event));
+                    });
+                }
+                source.onopen = () => renewed = false;
+                // the token is only checked on connect, so a reconnect after it expired is refused; renew once and reopen
+                source.onerror = () => {
+                    if (source.readyState === EventSource.CLOSED && !closed && !renewed) {
+                        renewed = true;
+                        this.authService.refreshToken().subscribe({
+                            next: () => {
+                                if (!closed) {
+                                    open();
+                                }
+                            },
+                            error: () => { }
+                        });
+                    }
+                };
+            };
+            open();
+            return () => {
+                closed = true;
+                source.close();
+            };
+        });
+    }
+}
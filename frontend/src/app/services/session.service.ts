@@ -13,6 +13,7 @@ export interface SessionData {
 @Injectable({ providedIn: 'root' })
 export class SessionService {
     private readonly TOKEN_KEY = 'token';
+    private readonly REFRESH_TOKEN_KEY = 'refreshToken';
     private readonly USER_KEY = 'user';
     private readonly SESSION_TIMEOUT = 2 * 60 * 60 * 1000;
     private readonly LAST_ACTIVITY_KEY = 'lastActivity';
@@ -60,6 +61,14 @@ export class SessionService {
         return localStorage.getItem(this.TOKEN_KEY);
     }
 
+    setRefreshToken(refreshToken: string): void {
+        localStorage.setItem(this.REFRESH_TOKEN_KEY, refreshToken);
+    }
+
+    getRefreshToken(): string | null {
+        return localStorage.getItem(this.REFRESH_TOKEN_KEY);
+    }
+
     getUserData(): any {
         const userData = localStorage.getItem(this.USER_KEY);
         return userData ? JSON.parse(userData) : null;
@@ -92,6 +101,7 @@ export class SessionService {
 
     clearSession(): void {
         localStorage.removeItem(this.TOKEN_KEY);
+        localStorage.removeItem(this.REFRESH_TOKEN_KEY);
         localStorage.removeItem(this.USER_KEY);
         localStorage.removeItem(this.LAST_ACTIVITY_KEY);
         this.sessionSubject.next(null);
@@ -0,0 +1,41 @@
+import { Injectable } from '@angular/core';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { Observable } from 'rxjs';
+
+@Injectable({
+  providedIn: 'root'
+})
+export class StatsService {
+  private apiUrl = 'http://localhost:8080/api/stats';
+  private analyticsUrl = 'http://localhost:8080/api/analytics';
+
+  constructor(private http: HttpClient) { }
+
+  private getHeaders(): HttpHeaders {
+    let headers = new HttpHeaders({
+      'Content-Type': 'application/json'
+    });
+    if (typeof window !== 'undefined') {
+      const token = localStorage.getItem('token');
+      if (token) {
+        headers = headers.set('Authorization', `Bearer ${token}`);
+      }
+    }
+    return headers;
+  }
+
+  getStats(): Observable<any> {
+    return this.http.get(this.apiUrl, { headers: this.getHeaders() });
+  }
+
+  getAnalytics(filters: { from?: string, to?: string, granularity?: string, category?: string } = {}): Observable<any> {
+    const params: string[] = [];
+    for (const [key, value] of Object.entries(filters)) {
+      if (value) {
+        params.push(`${key}=${encodeURIComponent(value)}`);
+      }
+    }
+    const query = params.length ? `?${params.join('&')}` : '';
+    return this.http.get(`${this.analyticsUrl}${query}`, { headers: this.getHeaders() });
+  }
+}
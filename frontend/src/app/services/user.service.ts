@@ -23,8 +23,19 @@ export class UserService {
     return headers;
   }
 
-  getAllUsers(): Observable<any> {
-    return this.http.get(this.apiUrl, { headers: this.getHeaders() });
+  getUsersPage(filters: any = {}, cursor?: string, size: number = 20): Observable<any> {
+    const params: string[] = [`size=${size}`];
+    for (const key of Object.keys(filters)) {
+      const value = filters[key];
+      if (value === null || value === undefined || value === '') {
+        continue;
+      }
+      params.push(`${key}=${encodeURIComponent(value)}`);
+    }
+    if (cursor) {
+      params.push(`cursor=${encodeURIComponent(cursor)}`);
+    }
+    return this.http.get(`${this.apiUrl}?${params.join('&')}`, { headers: this.getHeaders() });
   }
 
   registerUser(userData: any): Observable<any> {
@@ -43,7 +54,8 @@ export class UserService {
     return this.http.delete(`${this.apiUrl}/${id}`, { headers: this.getHeaders() });
   }
 
-  getUserCount(): Observable<any> {
-    return this.http.get(`${this.apiUrl}/count`, { headers: this.getHeaders() });
+  getUserCount(role?: string): Observable<any> {
+    const query = role ? `?role=${encodeURIComponent(role)}` : '';
+    return this.http.get(`${this.apiUrl}/count${query}`, { headers: this.getHeaders() });
   }
 }